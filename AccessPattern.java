@@ -0,0 +1,345 @@
+import java.io.IOException;
+import java.util.Locale;
+
+// Kernel cuyas referencias se generan sobre el layout contiguo m1|m2|m3 (tres
+// matrices NFxNC de elemSize bytes). Como en GeneradorDirecciones, cada
+// direccion se lleva como (pagina, offset) y avanza con sumas: las divisiones
+// se hacen al construir el patron, nunca por referencia. La traza resultante
+// tiene el formato de siempre (texto, binario o tuberia) y solo cambia NR.
+//
+//   filas          M3 = M1 + M2 fila a fila (el recorrido original)
+//   columnas       M3 = M1 + M2 columna a columna
+//   bloques[:B]    M3 = M1 + M2 por bloques de BxB (B = 32 por defecto)
+//   transpuesta    M3 = M1 + M2^T fila a fila; M2 se guarda NCxNF y se lee por columnas
+//   matmul-ijk     M3 = M1 x M2 con el producto de la celda acumulado en registro
+//   matmul-ikj     M3 = M1 x M2 recorriendo filas de M2 y M3 en el bucle interno
+// matmul requiere matrices cuadradas (NF == NC).
+interface AccessPattern {
+    String[] NOMBRES = {"filas", "columnas", "bloques", "transpuesta", "matmul-ijk", "matmul-ikj"};
+    int BLOQUE = 32;
+
+    // NR de la traza
+    long referencias();
+
+    void generar(SalidaTraza out) throws IOException;
+
+    // Como se guarda M2, para rehacer las etiquetas de una traza binaria
+    default byte disposicion() { return TrazaBinaria.FILAS; }
+
+    static String normalizar(String nombre) {
+        String n = nombre == null ? "" : nombre.trim().toLowerCase(Locale.ROOT);
+        return n.isEmpty() ? "filas" : n;
+    }
+
+    static AccessPattern crear(String nombre, int tp, int nf, int nc, int elemSize) {
+        String n = normalizar(nombre);
+        int bloque = BLOQUE;
+        if (n.startsWith("bloques:")) {
+            String b = n.substring("bloques:".length());
+            if (!b.matches("\\d+") || Integer.parseInt(b) <= 0) {
+                throw new IllegalArgumentException("Tamaño de bloque invalido en '" + nombre + "'. Use bloques:B con B > 0");
+            }
+            bloque = Integer.parseInt(b);
+            n = "bloques";
+        }
+        switch (n) {
+            case "filas":       return new GeneradorDirecciones(tp, nf, nc, elemSize);
+            case "columnas":    return new Columnas(tp, nf, nc, elemSize);
+            case "bloques":     return new Bloques(tp, nf, nc, elemSize, bloque);
+            case "transpuesta": return new Transpuesta(tp, nf, nc, elemSize);
+            case "matmul-ijk":
+            case "matmul-ikj":
+                if (nf != nc) {
+                    throw new IllegalArgumentException("El patron " + n + " requiere matrices cuadradas (NF == NC), no "
+                            + nf + "x" + nc + ".");
+                }
+                return new MatMul(tp, nf, elemSize, n.equals("matmul-ikj"));
+            default:
+                throw new IllegalArgumentException("Patron de acceso desconocido '" + nombre
+                        + "'. Use uno de " + String.join(", ", NOMBRES));
+        }
+    }
+
+    // Direccion como (pagina, offset), con offset < tp
+    final class Posicion {
+        final int tp;
+        long pagina, offset;
+
+        Posicion(int tp, long dir) {
+            this.tp = tp;
+            this.pagina = dir / tp;
+            this.offset = dir % tp;
+        }
+
+        void ir(Posicion o) {
+            pagina = o.pagina;
+            offset = o.offset;
+        }
+
+        void avanzar(Salto s) {
+            pagina += s.paginas;
+            offset += s.offset;
+            if (offset >= tp) {
+                offset -= tp;
+                pagina++;
+            }
+        }
+
+        // Para avances cortos (del orden de una pagina)
+        void sumar(long bytes) {
+            long o = offset + bytes;
+            while (o >= tp) {
+                o -= tp;
+                pagina++;
+            }
+            offset = o;
+        }
+    }
+
+    // Un avance fijo de bytes ya dividido en paginas y offset
+    final class Salto {
+        final long paginas, offset;
+
+        Salto(int tp, long bytes) {
+            this.paginas = bytes / tp;
+            this.offset = bytes % tp;
+        }
+    }
+
+    // Emite n celdas consecutivas de una fila para cada referencia de r (todas
+    // desde la columna j, con la fila de cada una ya en r.fila), partidas en
+    // rachas que no cruzan de pagina. Deja cada posicion tras su ultima celda.
+    static void tramo(SalidaTraza out, SalidaTraza.Racha r, Posicion[] pos, int j, long n) throws IOException {
+        int tp = pos[0].tp;
+        int elemSize = r.paso[0];
+        while (n > 0) {
+            long m = n;
+            for (int k = 0; k < r.tam; k++) {
+                long hastaBorde = (tp - pos[k].offset + elemSize - 1) / elemSize;
+                if (hastaBorde < m) m = hastaBorde;
+            }
+            for (int k = 0; k < r.tam; k++) {
+                r.col[k] = j;
+                r.pagina[k] = pos[k].pagina;
+                r.offset[k] = pos[k].offset;
+            }
+            out.racha(r, (int) m);
+            j += (int) m;
+            n -= m;
+            long avance = m * elemSize;
+            for (int k = 0; k < r.tam; k++) pos[k].sumar(avance);
+        }
+    }
+
+    // R,R,W de M1, M2, M3 en la misma celda, avanzando una columna por repeticion
+    static SalidaTraza.Racha rachaSuma(int elemSize) {
+        SalidaTraza.Racha r = new SalidaTraza.Racha(3);
+        for (int k = 0; k < 3; k++) {
+            r.matriz[k] = k + 1;
+            r.dCol[k] = 1;
+            r.paso[k] = elemSize;
+            r.escritura[k] = k == 2;
+        }
+        return r;
+    }
+
+    // Bases de M1, M2 y M3 en el layout contiguo
+    static Posicion[] bases(int tp, int nf, int nc, int elemSize) {
+        long bytesM = (long) nf * nc * elemSize;
+        return new Posicion[]{new Posicion(tp, 0), new Posicion(tp, bytesM), new Posicion(tp, 2 * bytesM)};
+    }
+
+    // Para cada columna j se baja por las filas: un salto de NC celdas por referencia
+    final class Columnas implements AccessPattern {
+        private final int tp, nf, nc, elemSize;
+        private final Salto fila;
+
+        Columnas(int tp, int nf, int nc, int elemSize) {
+            this.tp = tp;
+            this.nf = nf;
+            this.nc = nc;
+            this.elemSize = elemSize;
+            this.fila = new Salto(tp, (long) nc * elemSize);
+        }
+
+        public long referencias() { return 3L * nf * nc; }
+
+        public void generar(SalidaTraza out) throws IOException {
+            Posicion[] base = bases(tp, nf, nc, elemSize), pos = bases(tp, nf, nc, elemSize);
+            for (int j = 0; j < nc; j++) {
+                for (int k = 0; k < 3; k++) pos[k].ir(base[k]); // celda (0, j)
+                for (int i = 0; i < nf; i++) {
+                    for (int k = 0; k < 3; k++) {
+                        out.referencia(k + 1, i, j, pos[k].pagina, pos[k].offset, k == 2);
+                        pos[k].avanzar(fila);
+                    }
+                }
+                for (int k = 0; k < 3; k++) base[k].sumar(elemSize);
+            }
+        }
+    }
+
+    // Bloques de BxB en orden de filas; dentro de cada bloque, tramos de fila
+    final class Bloques implements AccessPattern {
+        private final int tp, nf, nc, elemSize, bloque;
+        private final Salto bajar, anchoBloque, altoBloque;
+
+        Bloques(int tp, int nf, int nc, int elemSize, int bloque) {
+            this.tp = tp;
+            this.nf = nf;
+            this.nc = nc;
+            this.elemSize = elemSize;
+            this.bloque = bloque;
+            this.bajar = new Salto(tp, (long) nc * elemSize);
+            this.anchoBloque = new Salto(tp, (long) bloque * elemSize);
+            this.altoBloque = new Salto(tp, (long) bloque * nc * elemSize);
+        }
+
+        public long referencias() { return 3L * nf * nc; }
+
+        public void generar(SalidaTraza out) throws IOException {
+            SalidaTraza.Racha r = rachaSuma(elemSize);
+            Posicion[] filaBloque = bases(tp, nf, nc, elemSize), inicio = bases(tp, nf, nc, elemSize);
+            Posicion[] fila = bases(tp, nf, nc, elemSize), pos = bases(tp, nf, nc, elemSize);
+            for (int bi = 0; bi < nf; bi += bloque) {
+                for (int k = 0; k < 3; k++) inicio[k].ir(filaBloque[k]); // celda (bi, 0)
+                for (int bj = 0; bj < nc; bj += bloque) {
+                    int ancho = Math.min(bloque, nc - bj);
+                    for (int k = 0; k < 3; k++) fila[k].ir(inicio[k]);   // celda (bi, bj)
+                    for (int i = bi; i < Math.min(bi + bloque, nf); i++) {
+                        for (int k = 0; k < 3; k++) {
+                            pos[k].ir(fila[k]);
+                            r.fila[k] = i;
+                            fila[k].avanzar(bajar);
+                        }
+                        tramo(out, r, pos, bj, ancho);
+                    }
+                    for (int k = 0; k < 3; k++) inicio[k].avanzar(anchoBloque);
+                }
+                for (int k = 0; k < 3; k++) filaBloque[k].avanzar(altoBloque);
+            }
+        }
+    }
+
+    // M1 y M3 se leen/escriben fila a fila; M2 (NCxNF) se recorre por columnas,
+    // un salto de NF celdas por referencia
+    final class Transpuesta implements AccessPattern {
+        private final int tp, nf, nc, elemSize;
+        private final Salto bajar;
+
+        Transpuesta(int tp, int nf, int nc, int elemSize) {
+            this.tp = tp;
+            this.nf = nf;
+            this.nc = nc;
+            this.elemSize = elemSize;
+            this.bajar = new Salto(tp, (long) nf * elemSize);
+        }
+
+        public long referencias() { return 3L * nf * nc; }
+
+        public byte disposicion() { return TrazaBinaria.M2_TRASPUESTA; }
+
+        public void generar(SalidaTraza out) throws IOException {
+            Posicion[] pos = bases(tp, nf, nc, elemSize);
+            Posicion m1 = pos[0], m2 = pos[1], m3 = pos[2];
+            Posicion columna = new Posicion(tp, 0); // M2[0][i]
+            columna.ir(m2);
+            for (int i = 0; i < nf; i++) {
+                m2.ir(columna);
+                for (int j = 0; j < nc; j++) {
+                    out.referencia(1, i, j, m1.pagina, m1.offset, false);
+                    out.referencia(2, j, i, m2.pagina, m2.offset, false);
+                    out.referencia(3, i, j, m3.pagina, m3.offset, true);
+                    m1.sumar(elemSize);
+                    m2.avanzar(bajar);
+                    m3.sumar(elemSize);
+                }
+                columna.sumar(elemSize);
+            }
+        }
+    }
+
+    // M3 = M1 x M2 con matrices NxN.
+    //   ijk: por celda (i,j), N veces R M1[i][k], R M2[k][j] (M2 por columnas) y un W M3[i][j]
+    //   ikj: por (i,k), R M1[i][k] y luego la fila: R M2[k][j], R M3[i][j], W M3[i][j]
+    final class MatMul implements AccessPattern {
+        private final int tp, n, elemSize;
+        private final boolean ikj;
+        private final Salto bajar;
+
+        MatMul(int tp, int n, int elemSize, boolean ikj) {
+            this.tp = tp;
+            this.n = n;
+            this.elemSize = elemSize;
+            this.ikj = ikj;
+            this.bajar = new Salto(tp, (long) n * elemSize);
+        }
+
+        public long referencias() {
+            long n2 = (long) n * n;
+            return ikj ? n2 + 3 * n2 * n : n2 * (2L * n + 1);
+        }
+
+        public void generar(SalidaTraza out) throws IOException {
+            if (ikj) generarIKJ(out); else generarIJK(out);
+        }
+
+        private void generarIJK(SalidaTraza out) throws IOException {
+            Posicion[] base = bases(tp, n, n, elemSize);
+            Posicion filaA = new Posicion(tp, 0), a = new Posicion(tp, 0);
+            Posicion colB = new Posicion(tp, 0), b = new Posicion(tp, 0);
+            Posicion c = new Posicion(tp, 0);
+            filaA.ir(base[0]);
+            c.ir(base[2]);
+            for (int i = 0; i < n; i++) {
+                colB.ir(base[1]);
+                for (int j = 0; j < n; j++) {
+                    a.ir(filaA);
+                    b.ir(colB);
+                    for (int k = 0; k < n; k++) {
+                        out.referencia(1, i, k, a.pagina, a.offset, false);
+                        out.referencia(2, k, j, b.pagina, b.offset, false);
+                        a.sumar(elemSize);
+                        b.avanzar(bajar);
+                    }
+                    out.referencia(3, i, j, c.pagina, c.offset, true);
+                    c.sumar(elemSize);
+                    colB.sumar(elemSize);
+                }
+                filaA.avanzar(bajar);
+            }
+        }
+
+        private void generarIKJ(SalidaTraza out) throws IOException {
+            Posicion[] base = bases(tp, n, n, elemSize);
+            SalidaTraza.Racha r = new SalidaTraza.Racha(3);
+            int[] matriz = {2, 3, 3};
+            for (int k = 0; k < 3; k++) {
+                r.matriz[k] = matriz[k];
+                r.dCol[k] = 1;
+                r.paso[k] = elemSize;
+                r.escritura[k] = k == 2;
+            }
+            Posicion a = new Posicion(tp, 0), filaB = new Posicion(tp, 0), filaC = new Posicion(tp, 0);
+            Posicion[] pos = {new Posicion(tp, 0), new Posicion(tp, 0), new Posicion(tp, 0)};
+            a.ir(base[0]);
+            filaC.ir(base[2]);
+            for (int i = 0; i < n; i++) {
+                filaB.ir(base[1]);
+                for (int k = 0; k < n; k++) {
+                    out.referencia(1, i, k, a.pagina, a.offset, false);
+                    a.sumar(elemSize);
+                    pos[0].ir(filaB);
+                    pos[1].ir(filaC);
+                    pos[2].ir(filaC);
+                    r.fila[0] = k;
+                    r.fila[1] = i;
+                    r.fila[2] = i;
+                    tramo(out, r, pos, 0, n);
+                    filaB.avanzar(bajar);
+                }
+                filaC.avanzar(bajar);
+            }
+        }
+    }
+}
\ No newline at end of file
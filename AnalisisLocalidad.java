@@ -0,0 +1,257 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+
+// Analisis de localidad de las trazas proc<i>, en una pasada y en streaming
+// (la traza se lee con la misma FuentePaginas que usa Opcion2, mapeada si es
+// grande). Por proceso escribe cuatro CSV en outDir:
+//   analisis_proc<i>_ws.csv          W(t, delta): paginas distintas en las ultimas delta referencias
+//   analisis_proc<i>_reuso.csv       histograma de distancia de reuso (paginas distintas entre
+//                                    dos accesos a la misma pagina), en cubetas potencia de 2
+//   analisis_proc<i>_popularidad.csv referencias por pagina, de la mas a la menos usada
+//   analisis_proc<i>_fases.csv       ventanas de delta referencias y su similitud (Jaccard) con
+//                                    la anterior; por debajo de UMBRAL_FASE empieza una fase nueva
+// La memoria depende de delta y del numero de paginas distintas, no del largo
+// de la traza: las distancias de reuso usan un ArbolFenwick sobre la posicion
+// del ultimo acceso de cada pagina, que se compacta cuando se llena, y W(t, delta)
+// un anillo con las ultimas delta referencias. Costo O(n log D).
+public class AnalisisLocalidad {
+    static final double UMBRAL_FASE = 0.5;
+
+    private String lastError;
+
+    public String getLastError() { return lastError; }
+    private boolean fail(String msg) { this.lastError = msg; return false; }
+
+    public boolean runAnalisis(int nproc, Path inDir, int delta, Path outDir) {
+        Opcion2 lector = new Opcion2();
+        for (int pid = 0; pid < nproc; pid++) {
+            Path file = Opcion2.archivoProceso(inDir, pid);
+            FuentePaginas fuente = lector.abrirFuente(file);
+            if (fuente == null) return fail(lector.getLastError());
+            String prefijo = "analisis_proc" + pid;
+            try (FuentePaginas f = fuente;
+                 BufferedWriter ws = Files.newBufferedWriter(outDir.resolve(prefijo + "_ws.csv"));
+                 BufferedWriter fases = Files.newBufferedWriter(outDir.resolve(prefijo + "_fases.csv"))) {
+                Estadisticas e = new Estadisticas(delta, ws, fases);
+                while (f.hayMas()) {
+                    e.referencia(f.actual());
+                    f.avanzar();
+                }
+                e.terminar();
+                e.escribirReuso(outDir.resolve(prefijo + "_reuso.csv"));
+                e.escribirPopularidad(outDir.resolve(prefijo + "_popularidad.csv"));
+                e.imprimirResumen(pid);
+            } catch (IOException e) {
+                return fail("No se pudo escribir el analisis de " + file.getFileName() + ": " + e.getMessage());
+            } catch (IllegalStateException e) {
+                // Error de formato al recorrer una traza mapeada
+                return fail(e.getMessage());
+            }
+        }
+        System.out.println("[Analisis] CSV escritos en " + outDir);
+        return true;
+    }
+
+    // Estado del analisis de una traza. Cada pagina recibe un id denso al
+    // aparecer por primera vez; todo lo demas se indexa por id.
+    private static final class Estadisticas {
+        private final int delta;
+        private final int pasoWS;
+        private final BufferedWriter ws, fases;
+
+        private final MapaPaginas ids = new MapaPaginas(1024);
+        private long[] paginaDe = new long[1024];
+        private long[] cuenta = new long[1024];
+        private int distintas = 0;
+        private long t = 0;
+
+        // Distancia de reuso: marca en 'pos' del ultimo acceso de cada pagina
+        private int[] pos = new int[1024];
+        private ArbolFenwick arbol = new ArbolFenwick(1024);
+        private int capacidad = 1024;
+        private int siguiente = 0;
+        private int anteriorId = -1;
+        private final long[] histograma = new long[64]; // cubeta b: distancia en [2^b, 2^(b+1))
+        private long frias = 0;
+
+        // W(t, delta): ids de las ultimas delta referencias y cuantas veces esta cada id
+        private final int[] anillo;
+        private int[] enVentana = new int[1024];
+        private long conjunto = 0;
+        private double sumaWS = 0;
+        private long muestrasWS = 0;
+
+        // Fases: ventana en la que se vio cada id por ultima vez
+        private long[] ventanaDe = new long[1024];
+        private long ventana = 0;
+        private long distintasVentana = 0, distintasPrevia = 0, comunes = 0;
+        private long fase = 0;
+
+        Estadisticas(int delta, BufferedWriter ws, BufferedWriter fases) throws IOException {
+            this.delta = delta;
+            this.pasoWS = Math.max(1, delta / 4);
+            this.anillo = new int[delta];
+            this.ws = ws;
+            this.fases = fases;
+            Arrays.fill(ventanaDe, -1);
+            ws.write("referencia,conjunto_trabajo\n");
+            fases.write("ventana,inicio,fin,paginas_distintas,similitud_anterior,fase\n");
+        }
+
+        void referencia(long pagina) throws IOException {
+            int id = ids.get(pagina);
+            if (id == MapaPaginas.AUSENTE) id = nuevaPagina(pagina);
+            cuenta[id]++;
+            reuso(id);
+            conjuntoTrabajo(id);
+            faseVentana(id);
+            t++;
+            if (t % pasoWS == 0) {
+                ws.write(t + "," + conjunto + "\n");
+                sumaWS += conjunto;
+                muestrasWS++;
+            }
+            if (t % delta == 0) cerrarVentana();
+        }
+
+        void terminar() throws IOException {
+            if (t % delta != 0) cerrarVentana();
+        }
+
+        private int nuevaPagina(long pagina) {
+            int id = distintas++;
+            if (id == paginaDe.length) {
+                int n = id * 2;
+                paginaDe = Arrays.copyOf(paginaDe, n);
+                cuenta = Arrays.copyOf(cuenta, n);
+                pos = Arrays.copyOf(pos, n);
+                enVentana = Arrays.copyOf(enVentana, n);
+                ventanaDe = Arrays.copyOf(ventanaDe, n);
+                Arrays.fill(ventanaDe, id, n, -1);
+            }
+            paginaDe[id] = pagina;
+            pos[id] = -1;
+            ids.put(pagina, id);
+            return id;
+        }
+
+        // Distancia = paginas distintas con ultimo acceso desde el de id (incluida)
+        private void reuso(int id) {
+            if (id == anteriorId) {
+                histograma[0]++; // distancia 1
+                return;
+            }
+            anteriorId = id;
+            if (pos[id] < 0) {
+                frias++;
+            } else {
+                // Cada pagina vista tiene exactamente una marca
+                int d = distintas - arbol.prefijo(pos[id] - 1);
+                histograma[63 - Long.numberOfLeadingZeros(d)]++;
+                arbol.sumar(pos[id], -1);
+                pos[id] = -1; // sin marca mientras se compacta
+            }
+            if (siguiente == capacidad) compactar();
+            pos[id] = siguiente++;
+            arbol.sumar(pos[id], 1);
+        }
+
+        // Renumera las marcas 0..D-1 en el mismo orden; el arbol vuelve a tener
+        // al menos la mitad libre, asi que el costo se amortiza
+        private void compactar() {
+            int[] porPos = new int[capacidad];
+            Arrays.fill(porPos, -1);
+            for (int id = 0; id < distintas; id++) {
+                if (pos[id] >= 0) porPos[pos[id]] = id;
+            }
+            capacidad = Math.max(capacidad, 2 * distintas);
+            arbol = new ArbolFenwick(capacidad);
+            siguiente = 0;
+            for (int id : porPos) {
+                if (id < 0) continue;
+                pos[id] = siguiente++;
+                arbol.sumar(pos[id], 1);
+            }
+        }
+
+        private void conjuntoTrabajo(int id) {
+            int k = (int) (t % delta);
+            if (t >= delta) {
+                int sale = anillo[k];
+                if (--enVentana[sale] == 0) conjunto--;
+            }
+            anillo[k] = id;
+            if (enVentana[id]++ == 0) conjunto++;
+        }
+
+        private void faseVentana(int id) {
+            if (ventanaDe[id] == ventana) return;
+            if (ventanaDe[id] == ventana - 1) comunes++;
+            ventanaDe[id] = ventana;
+            distintasVentana++;
+        }
+
+        private void cerrarVentana() throws IOException {
+            long union = distintasPrevia + distintasVentana - comunes;
+            double similitud = ventana == 0 ? 1.0 : (union > 0 ? (double) comunes / union : 1.0);
+            if (ventana > 0 && similitud < UMBRAL_FASE) fase++;
+            long inicio = ventana * delta;
+            fases.write(String.format(Locale.ROOT, "%d,%d,%d,%d,%.4f,%d%n",
+                    ventana, inicio, Math.min(t, inicio + delta) - 1, distintasVentana, similitud, fase));
+            distintasPrevia = distintasVentana;
+            distintasVentana = 0;
+            comunes = 0;
+            ventana++;
+        }
+
+        // fraccion_acumulada: referencias con distancia <= hasta (sin contar las frias);
+        // con LRU y 'hasta' marcos, 1 - fraccion_acumulada es la tasa de fallos
+        void escribirReuso(Path salida) throws IOException {
+            try (BufferedWriter w = Files.newBufferedWriter(salida)) {
+                w.write("distancia_desde,distancia_hasta,referencias,fraccion,fraccion_acumulada\n");
+                w.write(String.format(Locale.ROOT, "fria,fria,%d,%.6f,%n", frias, (double) frias / Math.max(1, t)));
+                long acumuladas = 0;
+                int ultima = 63;
+                while (ultima > 0 && histograma[ultima] == 0) ultima--;
+                for (int b = 0; b <= ultima; b++) {
+                    acumuladas += histograma[b];
+                    w.write(String.format(Locale.ROOT, "%d,%d,%d,%.6f,%.6f%n", 1L << b, (2L << b) - 1,
+                            histograma[b], (double) histograma[b] / Math.max(1, t), (double) acumuladas / Math.max(1, t)));
+                }
+            }
+        }
+
+        void escribirPopularidad(Path salida) throws IOException {
+            // Orden por cuenta descendente (y id ascendente en empate) ordenando
+            // claves cuenta << 31 | (MAX - id) en un long[], sin objetos.
+            // Supone menos de 2^32 referencias a una misma pagina.
+            long[] orden = new long[distintas];
+            for (int id = 0; id < distintas; id++) orden[id] = (cuenta[id] << 31) | (Integer.MAX_VALUE - id);
+            Arrays.sort(orden);
+            try (BufferedWriter w = Files.newBufferedWriter(salida)) {
+                w.write("rango,pagina,referencias,fraccion_acumulada\n");
+                long acumuladas = 0;
+                for (int r = 0; r < distintas; r++) {
+                    int id = Integer.MAX_VALUE - (int) (orden[distintas - 1 - r] & Integer.MAX_VALUE);
+                    acumuladas += cuenta[id];
+                    w.write(String.format(Locale.ROOT, "%d,%d,%d,%.6f%n", r + 1, paginaDe[id], cuenta[id],
+                            (double) acumuladas / Math.max(1, t)));
+                }
+            }
+        }
+
+        void imprimirResumen(int pid) {
+            System.out.println("Proceso: " + pid);
+            System.out.println("- Referencias: " + t);
+            System.out.println("- Paginas distintas: " + distintas);
+            System.out.printf(Locale.ROOT, "- Conjunto de trabajo medio (delta=%d): %.1f%n",
+                    delta, muestrasWS > 0 ? sumaWS / muestrasWS : (double) conjunto);
+            System.out.printf(Locale.ROOT, "- Reuso a distancia 1: %.4f%n", (double) histograma[0] / Math.max(1, t));
+            System.out.println("- Fases: " + (fase + 1));
+        }
+    }
+}
\ No newline at end of file
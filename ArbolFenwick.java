@@ -0,0 +1,21 @@
+// Arbol de Fenwick (indexado binario) sobre posiciones 0..n-1: suma de
+// prefijos y actualizacion puntual en O(log n). Se usa para contar paginas
+// distintas entre dos instantes de una traza (distancia de pila).
+final class ArbolFenwick {
+    private final int[] arbol;
+
+    ArbolFenwick(int n) {
+        this.arbol = new int[n + 1];
+    }
+
+    void sumar(int i, int delta) {
+        for (int k = i + 1; k < arbol.length; k += k & -k) arbol[k] += delta;
+    }
+
+    // Suma de las posiciones 0..i (0 si i < 0)
+    int prefijo(int i) {
+        int s = 0;
+        for (int k = i + 1; k > 0; k -= k & -k) s += arbol[k];
+        return s;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,235 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// Curva de fallos contra numero de marcos para un rango de marcosTotales, con
+// una sola lectura de cada traza.
+//  - lru: analisis de distancia de pila (Mattson). Con LRU el contenido con F
+//    marcos es siempre subconjunto del de F+1, asi que una pasada da la
+//    distancia de cada referencia y con ella los fallos para todo F.
+//  - demas politicas: un simulador por (proceso, configuracion) en paralelo,
+//    todos leyendo la misma traza ya decodificada.
+// Cada proceso se modela con marcosTotales/NPROC marcos fijos, sin la
+// reasignacion de marcos al terminar otro proceso: la curva describe a cada
+// proceso por si mismo. Las cifras exactas de una corrida salen de Opcion2.
+public class Barrido {
+    private String lastError;
+    private int hilos = 1;
+
+    public String getLastError() { return lastError; }
+    private boolean fail(String msg) { this.lastError = msg; return false; }
+
+    public void setHilos(int hilos) { this.hilos = Math.max(1, hilos); }
+
+    // marcos desde minMarcos hasta maxMarcos con paso 'paso' (todos multiplos de nproc).
+    // salida: .csv o .json; null solo imprime el resumen.
+    public boolean runBarrido(int nproc, Path inDir, int minMarcos, int maxMarcos, int paso,
+                              List<String> politicas, Path salida) {
+        List<Integer> marcos = new ArrayList<>();
+        for (long m = minMarcos; m <= maxMarcos; m += paso) marcos.add((int) m);
+
+        Opcion2 lector = new Opcion2();
+        long[][] trazas = new long[nproc][];
+        for (int pid = 0; pid < nproc; pid++) {
+            trazas[pid] = lector.loadPages(Opcion2.archivoProceso(inDir, pid));
+            if (trazas[pid] == null) return fail(lector.getLastError());
+        }
+
+        List<Punto> puntos = new ArrayList<>();
+        for (String politica : politicas) {
+            String nombre = ReplacementPolicy.normalizar(politica);
+            List<Punto> curva;
+            try {
+                curva = nombre.equals("lru")
+                        ? curvaLRU(trazas, marcos)
+                        : curvaSimulada(trazas, marcos, nombre);
+            } catch (IllegalStateException e) {
+                return fail(e.getMessage());
+            }
+            imprimirResumen(nombre, nproc, marcos, curva);
+            puntos.addAll(curva);
+        }
+
+        if (salida != null) {
+            try {
+                if (salida.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json")) {
+                    escribirJSON(salida, nproc, puntos);
+                } else {
+                    escribirCSV(salida, puntos);
+                }
+            } catch (IOException e) {
+                return fail("No se pudo escribir " + salida + ": " + e.getMessage());
+            }
+            System.out.println("[Barrido] Tabla escrita en " + salida);
+        }
+        return true;
+    }
+
+    // Una pasada de Mattson por proceso y luego todos los marcos del rango
+    private List<Punto> curvaLRU(long[][] trazas, List<Integer> marcos) {
+        int nproc = trazas.length;
+        int maxPorProceso = marcos.get(marcos.size() - 1) / nproc;
+        List<Punto> res = new ArrayList<>();
+        long[][] fallos = new long[nproc][];
+        for (int pid = 0; pid < nproc; pid++) fallos[pid] = fallosLRU(trazas[pid], maxPorProceso);
+        for (int m : marcos) {
+            for (int pid = 0; pid < nproc; pid++) {
+                res.add(new Punto("lru", m, pid, m / nproc, trazas[pid].length, fallos[pid][m / nproc]));
+            }
+        }
+        return res;
+    }
+
+    // fallos[F] para F = 0..maxMarcos con LRU y F marcos fijos.
+    // La distancia de una referencia es el numero de paginas distintas usadas
+    // desde el acceso anterior a la misma pagina (incluida): es hit si <= F.
+    // El arbol marca la posicion del ultimo acceso de cada pagina; las
+    // repeticiones seguidas de una pagina (distancia 1) no lo modifican.
+    static long[] fallosLRU(long[] traza, int maxMarcos) {
+        long[] histograma = new long[maxMarcos + 2]; // ultima casilla: distancia > maxMarcos
+        long frios = 0;
+        MapaPaginas ultimo = new MapaPaginas(1024);
+        ArbolFenwick arbol = new ArbolFenwick(traza.length);
+        int t = -1;
+        long anterior = 0;
+        for (long p : traza) {
+            if (t >= 0 && p == anterior) {
+                histograma[Math.min(1, maxMarcos + 1)]++;
+                continue;
+            }
+            anterior = p;
+            t++;
+            int u = ultimo.get(p);
+            if (u == MapaPaginas.AUSENTE) {
+                frios++;
+            } else {
+                int d = arbol.prefijo(t - 1) - arbol.prefijo(u - 1);
+                histograma[Math.min(d, maxMarcos + 1)]++;
+                arbol.sumar(u, -1);
+            }
+            arbol.sumar(t, 1);
+            ultimo.put(p, t);
+        }
+        long[] fallos = new long[maxMarcos + 1];
+        long lejanas = histograma[maxMarcos + 1];
+        for (int f = maxMarcos; f >= 0; f--) {
+            fallos[f] = frios + lejanas;
+            lejanas += histograma[f];
+        }
+        return fallos;
+    }
+
+    private List<Punto> curvaSimulada(long[][] trazas, List<Integer> marcos, String politica) {
+        int nproc = trazas.length;
+        List<Punto> res = new ArrayList<>();
+        if (hilos <= 1) {
+            for (int m : marcos) {
+                for (int pid = 0; pid < nproc; pid++) res.add(simular(trazas, pid, m, politica));
+            }
+            return res;
+        }
+        ForkJoinPool pool = new ForkJoinPool(hilos);
+        try {
+            List<Future<Punto>> tareas = new ArrayList<>();
+            for (int m : marcos) {
+                for (int pid = 0; pid < nproc; pid++) {
+                    final int id = pid;
+                    tareas.add(pool.submit(() -> simular(trazas, id, m, politica)));
+                }
+            }
+            for (Future<Punto> f : tareas) {
+                try {
+                    res.add(f.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Barrido interrumpido", e);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return res;
+    }
+
+    private static Punto simular(long[][] trazas, int pid, int marcos, String politica) {
+        int porProceso = marcos / trazas.length;
+        long fallos = Opcion2.simularAislado(trazas[pid], porProceso, politica);
+        return new Punto(politica, marcos, pid, porProceso, trazas[pid].length, fallos);
+    }
+
+    private static void imprimirResumen(String politica, int nproc, List<Integer> marcos, List<Punto> curva) {
+        System.out.println("Barrido: Procesos: " + nproc + ", Politica: " + politica);
+        int k = 0;
+        for (int m : marcos) {
+            long refs = 0, fallos = 0;
+            for (int pid = 0; pid < nproc; pid++, k++) {
+                refs += curva.get(k).referencias();
+                fallos += curva.get(k).fallos;
+            }
+            System.out.printf(Locale.ROOT, "- Marcos: %d -> Fallas: %d, Tasa fallas: %.4f%n",
+                    m, fallos, refs > 0 ? (double) fallos / refs : 0.0);
+        }
+    }
+
+    private static void escribirCSV(Path salida, List<Punto> puntos) throws IOException {
+        try (BufferedWriter w = Files.newBufferedWriter(salida)) {
+            w.write("politica,marcos,proceso,marcos_proceso,referencias,fallos,hits,swap,tasa_fallos\n");
+            for (Punto p : puntos) {
+                w.write(String.format(Locale.ROOT, "%s,%d,%d,%d,%d,%d,%d,%d,%.6f%n", p.politica, p.marcos,
+                        p.pid, p.marcosProceso, p.referencias(), p.fallos, p.hits, p.swap(), p.tasaFallos()));
+            }
+        }
+    }
+
+    private static void escribirJSON(Path salida, int nproc, List<Punto> puntos) throws IOException {
+        try (BufferedWriter w = Files.newBufferedWriter(salida)) {
+            w.write("{\n  \"procesos\": " + nproc + ",\n  \"puntos\": [\n");
+            for (int k = 0; k < puntos.size(); k++) {
+                Punto p = puntos.get(k);
+                w.write(String.format(Locale.ROOT,
+                        "    {\"politica\": \"%s\", \"marcos\": %d, \"proceso\": %d, \"marcos_proceso\": %d, "
+                        + "\"referencias\": %d, \"fallos\": %d, \"hits\": %d, \"swap\": %d, \"tasa_fallos\": %.6f}%s%n",
+                        p.politica, p.marcos, p.pid, p.marcosProceso, p.referencias(), p.fallos, p.hits, p.swap(),
+                        p.tasaFallos(), k + 1 < puntos.size() ? "," : ""));
+            }
+            w.write("  ]\n}\n");
+        }
+    }
+
+    // Resultado de un proceso con marcos/NPROC marcos. Igual que en Opcion2, cada
+    // fallo reintenta la referencia (cuenta como referencia y luego es hit), y
+    // los primeros marcosProceso fallos cargan en marco libre (1 acceso a SWAP)
+    // y el resto reemplaza (2 accesos).
+    private static final class Punto {
+        final String politica;
+        final int marcos, pid, marcosProceso;
+        final long hits, fallos;
+
+        Punto(String politica, int marcos, int pid, int marcosProceso, long hits, long fallos) {
+            this.politica = politica;
+            this.marcos = marcos;
+            this.pid = pid;
+            this.marcosProceso = marcosProceso;
+            this.hits = hits;
+            this.fallos = fallos;
+        }
+
+        long referencias() { return hits + fallos; }
+
+        long swap() {
+            long cargas = Math.min(fallos, marcosProceso);
+            return cargas + 2 * (fallos - cargas);
+        }
+
+        double tasaFallos() { return referencias() > 0 ? (double) fallos / referencias() : 0.0; }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,238 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Micro-benchmarks del generador (Opcion1), el cargador (Opcion2.loadPages) y el
+// simulador (Opcion2.simularTrazas), sin dependencias externas.
+//
+//   java Benchmark [generar|cargar|simular|todo] CLAVE=v1,v2,...
+//
+// Claves (listas separadas por coma; se mide el producto cartesiano):
+//   TP=128,4096  TAM=64x64,512x512  NPROC=1,4  MARCOS=8,64  POLITICA=aging
+//   BINARIO=n  HILOS=1  TLB=0 (entradas, multiplo de 4, de una TLB de 4 vias; 0 = sin TLB)
+//   PATRON=filas (ver AccessPattern; aplica a las trazas de todos los modos)
+//   ASIGNACION=fallos (o global: reemplazo global con POLITICA=clock)  COMPARTIDAS=0
+//   CALENTAR=3  ITER=5
+// Cada combinacion hace CALENTAR iteraciones sin medir (JIT) y luego ITER
+// medidas; se informa media +- desviacion, rendimiento y bytes asignados por
+// iteracion en el hilo que mide (equivalente a -prof gc).
+// Reemplazo local contra global en una maquina con muchos nucleos, p. ej.:
+//   java Benchmark simular NPROC=16 HILOS=1,16 POLITICA=clock ASIGNACION=fallos,global
+public class Benchmark {
+    private static final PrintStream OUT = System.out;
+    private static final PrintStream NULO = new PrintStream(OutputStream.nullOutputStream());
+
+    public static void main(String[] args) throws IOException {
+        String modo = args.length > 0 && !args[0].contains("=") ? args[0] : "todo";
+        Map<String, String[]> p = new LinkedHashMap<>();
+        p.put("TP", new String[]{"128", "4096"});
+        p.put("TAM", new String[]{"256x256"});
+        p.put("NPROC", new String[]{"1", "4"});
+        p.put("MARCOS", new String[]{"8", "64"});
+        p.put("POLITICA", new String[]{"aging"});
+        p.put("BINARIO", new String[]{"n"});
+        p.put("HILOS", new String[]{"1"});
+        p.put("TLB", new String[]{"0"});
+        p.put("PATRON", new String[]{"filas"});
+        p.put("ASIGNACION", new String[]{"fallos"});
+        p.put("COMPARTIDAS", new String[]{"0"});
+        p.put("CALENTAR", new String[]{"3"});
+        p.put("ITER", new String[]{"5"});
+        for (String a : args) {
+            int eq = a.indexOf('=');
+            if (eq <= 0) continue;
+            String k = a.substring(0, eq).trim().toUpperCase(Locale.ROOT);
+            if (!p.containsKey(k)) throw new IllegalArgumentException("Parametro desconocido: " + k);
+            p.put(k, a.substring(eq + 1).split("\\s*,\\s*"));
+        }
+        int calentar = Integer.parseInt(p.get("CALENTAR")[0]);
+        int iter = Integer.parseInt(p.get("ITER")[0]);
+        long compartidas = Long.parseLong(p.get("COMPARTIDAS")[0]);
+
+        Path dir = Files.createTempDirectory("caso2-bench");
+        try {
+            OUT.printf("%-8s %-6s %-10s %-6s %-7s %-12s %-6s %-11s %14s %16s %14s%n",
+                    "bench", "TP", "TAM", "NPROC", "MARCOS", "POLITICA", "HILOS", "PATRON", "ms/op", "rendimiento", "asignado/op");
+            for (String tp : p.get("TP"))
+            for (String tam : p.get("TAM"))
+            for (String nproc : p.get("NPROC"))
+            for (String bin : p.get("BINARIO"))
+            for (String hilos : p.get("HILOS"))
+            for (String patron : p.get("PATRON")) {
+                Escenario e = new Escenario(Integer.parseInt(tp), tam, Integer.parseInt(nproc),
+                        bin.equalsIgnoreCase("y"), Integer.parseInt(hilos), patron, dir);
+                if (modo.equals("generar") || modo.equals("todo")) {
+                    medir("generar", e, "-", "-", calentar, iter, "Mref/s", e.referencias, "MB/s", () -> {
+                        e.generar();
+                        return e.bytesTraza();
+                    });
+                }
+                if (modo.equals("cargar") || modo.equals("todo") || modo.equals("simular")) e.asegurarTrazas();
+                if (modo.equals("cargar") || modo.equals("todo")) {
+                    medir("cargar", e, "-", "-", calentar, iter, "MB/s", e.bytesTraza(), null, () -> {
+                        e.cargar();
+                        return 0;
+                    });
+                }
+                if (modo.equals("simular") || modo.equals("todo")) {
+                    e.cargar();
+                    for (String marcos : p.get("MARCOS"))
+                    for (String pol : p.get("POLITICA"))
+                    for (String asig : p.get("ASIGNACION"))
+                    for (String tlb : p.get("TLB")) {
+                        int m = Integer.parseInt(marcos) * e.nproc;
+                        int entradas = Integer.parseInt(tlb);
+                        String etiqueta = entradas > 0 ? pol + "+tlb" + entradas : pol;
+                        if (FrameAllocator.normalizar(asig).equals(FrameAllocator.GLOBAL)) etiqueta += "/global";
+                        final long[] refs = new long[1];
+                        medir("simular", e, String.valueOf(m), etiqueta, calentar, iter, "Mref/s", -1, null, () -> {
+                            refs[0] = e.simular(m, pol, asig, compartidas, entradas);
+                            return refs[0];
+                        });
+                    }
+                }
+                e.borrar();
+            }
+        } finally {
+            borrarDirectorio(dir);
+        }
+    }
+
+    interface Operacion {
+        long correr() throws IOException;
+    }
+
+    // unidades: 'unidadesPorOp' unidades por iteracion (-1 = lo que devuelve la operacion);
+    // segunda: metrica adicional en bytes/s con el valor devuelto
+    private static void medir(String nombre, Escenario e, String marcos, String pol, int calentar, int iter,
+                              String unidad, long unidadesPorOp, String segunda, Operacion op) throws IOException {
+        long consumir = 0;
+        for (int k = 0; k < calentar; k++) consumir += silencioso(op);
+        double[] ms = new double[iter];
+        long unidades = 0, extra = 0, asignado = 0;
+        for (int k = 0; k < iter; k++) {
+            long a0 = asignadoHilo();
+            long t0 = System.nanoTime();
+            long r = silencioso(op);
+            ms[k] = (System.nanoTime() - t0) / 1e6;
+            asignado += asignadoHilo() - a0;
+            consumir += r;
+            unidades += unidadesPorOp >= 0 ? unidadesPorOp : r;
+            extra += r;
+        }
+        double media = 0;
+        for (double v : ms) media += v;
+        media /= iter;
+        double var = 0;
+        for (double v : ms) var += (v - media) * (v - media);
+        double desv = iter > 1 ? Math.sqrt(var / (iter - 1)) : 0;
+        double seg = media * iter / 1e3;
+        String rend = String.format(Locale.ROOT, "%.2f %s", unidades / seg / 1e6, unidad);
+        if (segunda != null) rend += String.format(Locale.ROOT, ", %.1f %s", extra / seg / 1e6, segunda);
+        OUT.printf(Locale.ROOT, "%-8s %-6d %-10s %-6d %-7s %-12s %-6d %-11s %8.2f +- %-5.2f %16s %11.1f KB%n",
+                nombre, e.tp, e.tam, e.nproc, marcos, pol, e.hilos, e.patron, media, desv, rend, asignado / (double) iter / 1024);
+        if (consumir == 42) OUT.print(""); // evita que el JIT descarte resultados
+    }
+
+    private static long silencioso(Operacion op) throws IOException {
+        System.setOut(NULO);
+        try {
+            return op.correr();
+        } finally {
+            System.setOut(OUT);
+        }
+    }
+
+    private static long asignadoHilo() {
+        java.lang.management.ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+        if (mx instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) mx).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    // Una combinacion TP x TAM x NPROC x PATRON con sus trazas en un subdirectorio
+    private static final class Escenario {
+        final int tp, nproc, hilos;
+        final String tam, patron;
+        final boolean binario;
+        final Path dir;
+        final List<int[]> sizes = new ArrayList<>();
+        final long referencias;
+        long[][] trazas;
+        boolean generadas;
+
+        Escenario(int tp, String tam, int nproc, boolean binario, int hilos, String patron, Path base) throws IOException {
+            this.tp = tp;
+            this.tam = tam;
+            this.patron = AccessPattern.normalizar(patron);
+            this.nproc = nproc;
+            this.binario = binario;
+            this.hilos = hilos;
+            String[] nfnc = tam.toLowerCase(Locale.ROOT).split("x");
+            int nf = Integer.parseInt(nfnc[0]), nc = Integer.parseInt(nfnc[1]);
+            for (int i = 0; i < nproc; i++) sizes.add(new int[]{nf, nc});
+            this.referencias = AccessPattern.crear(patron, tp, nf, nc, 4).referencias() * nproc;
+            this.dir = Files.createDirectories(base.resolve(tp + "_" + tam + "_" + nproc + "_" + binario
+                    + "_" + this.patron.replace(':', '_')));
+        }
+
+        void generar() throws IOException {
+            Opcion1 o = new Opcion1();
+            o.setHilos(hilos);
+            o.setPatron(patron);
+            if (!o.runOpcion1(tp, nproc, sizes, 4, dir, binario)) throw new IOException(o.getLastError());
+            generadas = true;
+        }
+
+        void asegurarTrazas() throws IOException {
+            if (!generadas) silencioso(() -> { generar(); return 0; });
+        }
+
+        long bytesTraza() throws IOException {
+            long total = 0;
+            for (int pid = 0; pid < nproc; pid++) total += Files.size(Opcion2.archivoProceso(dir, pid));
+            return total;
+        }
+
+        void cargar() throws IOException {
+            Opcion2 o = new Opcion2();
+            trazas = new long[nproc][];
+            for (int pid = 0; pid < nproc; pid++) {
+                trazas[pid] = o.loadPages(Opcion2.archivoProceso(dir, pid));
+                if (trazas[pid] == null) throw new IOException(o.getLastError());
+            }
+        }
+
+        long simular(int marcosTotales, String politica, String asignacion, long compartidas, int entradasTLB) {
+            Opcion2 o = new Opcion2();
+            o.setHilos(hilos);
+            o.setAsignacion(asignacion);
+            o.setPaginasCompartidas(compartidas);
+            o.setTLB(entradasTLB, Math.min(4, Math.max(1, entradasTLB)));
+            return o.simularTrazas(trazas, marcosTotales, politica);
+        }
+
+        void borrar() throws IOException {
+            trazas = null;
+            borrarDirectorio(dir);
+        }
+    }
+
+    private static void borrarDirectorio(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> s = Files.walk(dir)) {
+            for (Path f : (Iterable<Path>) s.sorted(Comparator.reverseOrder())::iterator) Files.delete(f);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,32 @@
+import java.util.Arrays;
+
+// Arreglo creciente de numeros de pagina en un long[], sin boxing
+final class BufferPaginas {
+    private static final int MAX_TAM = Integer.MAX_VALUE - 8;
+
+    private long[] datos;
+    private int tam = 0;
+
+    BufferPaginas(long capacidadInicial) {
+        this.datos = new long[(int) Math.max(16, Math.min(capacidadInicial, MAX_TAM))];
+    }
+
+    void agregar(long pagina) {
+        if (tam == datos.length) crecer();
+        datos[tam++] = pagina;
+    }
+
+    int tamano() { return tam; }
+
+    // Arreglo con exactamente tamano() elementos
+    long[] toArray() {
+        return tam == datos.length ? datos : Arrays.copyOf(datos, tam);
+    }
+
+    private void crecer() {
+        if (datos.length >= MAX_TAM) {
+            throw new IllegalStateException("La traza supera " + MAX_TAM + " referencias; use una traza mapeada");
+        }
+        datos = Arrays.copyOf(datos, (int) Math.min(MAX_TAM, (long) datos.length + (datos.length >> 1)));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,145 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Checkpoints de una simulacion de Opcion2, para retomarla si se corta:
+//   MAGIA(4) VERSION(1) firma(UTF) estado (lo escribe Opcion2)
+// La firma resume la corrida (politica, asignacion, marcos, TLB, trazas) y
+// tiene que coincidir para retomar. El estado se serializa en memoria en el
+// hilo de la simulacion, en un punto entre rondas; la escritura a disco
+// (archivo temporal, force y rename atomico) va en un hilo aparte. Si la
+// escritura anterior no termino, ese checkpoint se omite en vez de esperar.
+final class Checkpoint implements AutoCloseable {
+    static final int MAGIA = 0x434B5031; // "CKP1"
+    static final byte VERSION = 1;
+
+    interface Volcado {
+        void escribir(DataOutputStream out) throws IOException;
+    }
+
+    private final Path archivo;
+    private final long intervalo;
+    private final boolean retomar;
+    private String firma;
+
+    private final ExecutorService escritor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "checkpoint");
+        t.setDaemon(true);
+        return t;
+    });
+    private Future<?> pendiente;
+    private volatile String errorEscritura;
+    private int escritos = 0, omitidos = 0;
+
+    // intervalo: pasos globales entre checkpoints; retomar: partir del archivo si existe
+    Checkpoint(Path archivo, long intervalo, boolean retomar) {
+        if (intervalo <= 0) throw new IllegalArgumentException("El intervalo de checkpoints debe ser positivo.");
+        this.archivo = archivo;
+        this.intervalo = intervalo;
+        this.retomar = retomar;
+    }
+
+    Path archivo() { return archivo; }
+
+    // true despues de abrir: solo entonces la simulacion toma checkpoints
+    boolean abierto() { return firma != null; }
+
+    long siguiente(long ahora) { return ahora + intervalo; }
+
+    // Fija la firma de la corrida y devuelve el estado a retomar, o null si se
+    // empieza de cero. IOException si el archivo es de otra corrida o esta dañado.
+    DataInputStream abrir(String firma) throws IOException {
+        this.firma = firma;
+        if (!retomar || !Files.exists(archivo)) return null;
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(archivo)));
+        if (in.readInt() != MAGIA) throw new IOException(archivo.getFileName() + " no es un checkpoint");
+        byte version = in.readByte();
+        if (version != VERSION) throw new IOException("Version de checkpoint no soportada: " + version);
+        String guardada = in.readUTF();
+        if (!guardada.equals(firma)) {
+            throw new IOException("El checkpoint " + archivo.getFileName() + " es de otra corrida (" + guardada + ")");
+        }
+        return in;
+    }
+
+    // Serializa el estado ahora y lo escribe en segundo plano
+    void tomar(Volcado v) {
+        if (pendiente != null && !pendiente.isDone()) {
+            omitidos++;
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 12);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIA);
+            out.writeByte(VERSION);
+            out.writeUTF(firma);
+            v.escribir(out);
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo serializar el checkpoint: " + e.getMessage(), e);
+        }
+        byte[] datos = bytes.toByteArray();
+        pendiente = escritor.submit(() -> escribir(datos));
+        escritos++;
+    }
+
+    private void escribir(byte[] datos) {
+        Path tmp = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try {
+            try (FileChannel c = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer b = ByteBuffer.wrap(datos);
+                while (b.hasRemaining()) c.write(b);
+                c.force(true);
+            }
+            Files.move(tmp, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            errorEscritura = e.getMessage();
+        }
+    }
+
+    // Espera la ultima escritura. Si la corrida termino bien el checkpoint ya no
+    // sirve y se borra; si no, queda el ultimo para retomar.
+    void terminar(boolean completa) {
+        esperar();
+        if (errorEscritura != null) System.out.println("[Checkpoint] Error escribiendo " + archivo + ": " + errorEscritura);
+        if (escritos > 0 || omitidos > 0) {
+            System.out.println("[Checkpoint] " + escritos + " escritos, " + omitidos + " omitidos (escritura anterior en curso)");
+        }
+        if (completa) {
+            try {
+                Files.deleteIfExists(archivo);
+                Files.deleteIfExists(archivo.resolveSibling(archivo.getFileName() + ".tmp"));
+            } catch (IOException e) {
+                System.out.println("[Checkpoint] No se pudo borrar " + archivo + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void esperar() {
+        if (pendiente == null) return;
+        try {
+            pendiente.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            errorEscritura = e.getCause().getMessage();
+        }
+    }
+
+    @Override
+    public void close() {
+        escritor.shutdown();
+    }
+}
\ No newline at end of file
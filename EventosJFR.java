@@ -0,0 +1,70 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Metricas de la simulacion como eventos de Java Flight Recorder. Solo cuestan
+// algo con una grabacion activa, p. ej.:
+//   java -XX:StartFlightRecording=filename=sim.jfr UI
+// y se ven con JDK Mission Control o `jfr print --events caso2.* sim.jfr`.
+final class EventosJFR implements MetricasSimulacion {
+
+    @Name("caso2.Muestra")
+    @Label("Muestra de simulacion")
+    @Category("Caso2")
+    static final class Muestra extends Event {
+        @Label("Pasos") long pasos;
+        @Label("Referencias por segundo") double referenciasPorSegundo;
+        @Label("Fallos en la ventana") long fallosVentana;
+        @Label("Procesos en cola") int enCola;
+    }
+
+    @Name("caso2.ConjuntoTrabajo")
+    @Label("Conjunto de trabajo")
+    @Description("Paginas distintas referenciadas por un proceso desde la muestra anterior")
+    @Category("Caso2")
+    static final class ConjuntoTrabajo extends Event {
+        @Label("Proceso") int pid;
+        @Label("Paginas") long paginas;
+        @Label("Marcos ocupados") int marcos;
+        @Label("Fallos acumulados") long fallos;
+    }
+
+    @Name("caso2.Reasignacion")
+    @Label("Reasignacion de marcos")
+    @Category("Caso2")
+    static final class Reasignacion extends Event {
+        @Label("Desde proceso") int desde;
+        @Label("Hacia proceso") int hacia;
+        @Label("Marcos") int marcos;
+    }
+
+    public void muestra(MetricasSimulacion.Muestra m) {
+        Muestra e = new Muestra();
+        if (e.isEnabled()) {
+            e.pasos = m.pasos;
+            e.referenciasPorSegundo = m.referenciasPorSegundo;
+            e.fallosVentana = m.fallosVentana;
+            e.enCola = m.enCola;
+            e.commit();
+        }
+        for (int k = 0; k < m.procesos(); k++) {
+            ConjuntoTrabajo c = new ConjuntoTrabajo();
+            if (!c.isEnabled()) break;
+            c.pid = m.pid[k];
+            c.paginas = m.conjuntoTrabajo[k];
+            c.marcos = m.marcos[k];
+            c.fallos = m.fallos[k];
+            c.commit();
+        }
+    }
+
+    public void reasignacion(int desde, int hacia, int marcos) {
+        Reasignacion e = new Reasignacion();
+        e.desde = desde;
+        e.hacia = hacia;
+        e.marcos = marcos;
+        e.commit();
+    }
+}
\ No newline at end of file
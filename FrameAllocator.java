@@ -0,0 +1,345 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+// Reparto de marcosTotales entre los procesos. El asignador decide limites;
+// Opcion2 los aplica: si un limite baja el proceso cede marcos (su politica de
+// reemplazo elige cuales) y si sube los ocupa en sus siguientes fallos.
+interface FrameAllocator {
+    String[] NOMBRES = {"fallos", "proporcional", "pff", "ws"};
+    // No es un asignador: sin reparto, reemplazo global sobre todos los marcos
+    // (ver MarcosGlobales y Opcion2.simularGlobal)
+    String GLOBAL = "global";
+
+    // alTerminar: nadie hereda los marcos / se devuelven al total y se rebalancea
+    int NADIE = -1;
+    int DEVOLVER = -2;
+
+    // Lo que un asignador ve de los procesos, por pid
+    interface Vista {
+        int procesos();
+        boolean activo(int pid);
+        long referencias(int pid);
+        long fallos(int pid);
+        // Paginas distintas referenciadas desde el rebalanceo anterior
+        long paginasRecientes(int pid);
+    }
+
+    // Limites iniciales, con suma <= marcosTotales. np[pid] = paginas virtuales (NP)
+    int[] inicial(Vista v, int marcosTotales, long[] np);
+
+    // Fallo de pid; fallos es su total acumulado
+    default void alFallar(int pid, long fallos) {}
+
+    // Termino pid: proceso que hereda sus marcos con las paginas que tenian,
+    // NADIE, o DEVOLVER para llamar a rebalancear
+    int alTerminar(int pid, Vista v);
+
+    // Pasos globales entre rebalanceos periodicos (0 = solo al terminar un proceso)
+    default long intervalo(int activos) { return 0; }
+
+    // Ajusta limite[pid] de los procesos activos; la suma no debe pasar de marcosTotales
+    default void rebalancear(Vista v, int marcosTotales, int[] limite) {}
+
+    default boolean necesitaPaginasRecientes() { return false; }
+
+    // Checkpoints: estado propio del asignador (los limites los guarda Opcion2).
+    // cargar se llama despues de inicial.
+    default void guardar(DataOutput out) throws IOException {}
+    default void cargar(DataInput in) throws IOException {}
+
+    static String normalizar(String nombre) {
+        String n = nombre == null ? "" : nombre.trim().toLowerCase(Locale.ROOT);
+        return n.isEmpty() ? "fallos" : n;
+    }
+
+    static FrameAllocator crear(String nombre) {
+        switch (normalizar(nombre)) {
+            case "fallos":       return new MasFallos();
+            case "proporcional": return new Proporcional();
+            case "pff":          return new PFF();
+            case "ws":           return new ConjuntoTrabajo();
+            default:
+                throw new IllegalArgumentException("Asignacion desconocida '" + nombre
+                        + "'. Use una de " + String.join(", ", NOMBRES));
+        }
+    }
+
+    // marcosTotales / NPROC para cada proceso (el reparto original)
+    static int[] partesIguales(Vista v, int marcosTotales) {
+        int[] limite = new int[v.procesos()];
+        Arrays.fill(limite, marcosTotales / Math.max(1, v.procesos()));
+        return limite;
+    }
+
+    // Comportamiento original: partes iguales y, al terminar un proceso, todos
+    // sus marcos (con sus paginas) al pendiente con mas fallos (el de menor pid
+    // en empate). El maximo se mantiene en un monticulo indexado por pid que se
+    // actualiza en cada fallo, en vez de recorrer todos los procesos.
+    final class MasFallos implements FrameAllocator {
+        private long[] fallos;
+        private int[] heap, pos;
+        private int tam = 0;
+
+        public int[] inicial(Vista v, int marcosTotales, long[] np) {
+            int n = v.procesos();
+            fallos = new long[n];
+            heap = new int[n];
+            pos = new int[n];
+            Arrays.fill(pos, -1);
+            for (int pid = 0; pid < n; pid++) {
+                if (!v.activo(pid)) continue;
+                fallos[pid] = v.fallos(pid);
+                heap[tam] = pid;
+                pos[pid] = tam++;
+                subir(pos[pid]);
+            }
+            return partesIguales(v, marcosTotales);
+        }
+
+        public void alFallar(int pid, long f) {
+            fallos[pid] = f;
+            if (pos[pid] >= 0) subir(pos[pid]);
+        }
+
+        public int alTerminar(int pid, Vista v) {
+            int i = pos[pid];
+            if (i >= 0) {
+                pos[pid] = -1;
+                tam--;
+                if (i < tam) {
+                    int m = heap[tam];
+                    heap[i] = m;
+                    pos[m] = i;
+                    subir(i);
+                    bajar(pos[m]);
+                }
+            }
+            return tam > 0 ? heap[0] : NADIE;
+        }
+
+        // Fallos y pendientes; el orden del monticulo es total, se reconstruye
+        public void guardar(DataOutput out) throws IOException {
+            for (int pid = 0; pid < fallos.length; pid++) {
+                out.writeLong(fallos[pid]);
+                out.writeBoolean(pos[pid] >= 0);
+            }
+        }
+
+        public void cargar(DataInput in) throws IOException {
+            Arrays.fill(pos, -1);
+            tam = 0;
+            for (int pid = 0; pid < fallos.length; pid++) {
+                fallos[pid] = in.readLong();
+                if (in.readBoolean()) {
+                    heap[tam] = pid;
+                    pos[pid] = tam++;
+                    subir(pos[pid]);
+                }
+            }
+        }
+
+        private boolean antes(int a, int b) {
+            return fallos[a] > fallos[b] || (fallos[a] == fallos[b] && a < b);
+        }
+
+        private void subir(int i) {
+            while (i > 0) {
+                int padre = (i - 1) >> 1;
+                if (!antes(heap[i], heap[padre])) break;
+                intercambiar(i, padre);
+                i = padre;
+            }
+        }
+
+        private void bajar(int i) {
+            while (true) {
+                int izq = 2 * i + 1;
+                if (izq >= tam) break;
+                int mejor = izq;
+                if (izq + 1 < tam && antes(heap[izq + 1], heap[izq])) mejor = izq + 1;
+                if (!antes(heap[mejor], heap[i])) break;
+                intercambiar(i, mejor);
+                i = mejor;
+            }
+        }
+
+        private void intercambiar(int a, int b) {
+            int pa = heap[a], pb = heap[b];
+            heap[a] = pb; pos[pb] = a;
+            heap[b] = pa; pos[pa] = b;
+        }
+    }
+
+    // Asignacion proporcional al tamaño virtual: a_i = NP_i / suma(NP) * m, con
+    // al menos un marco. Se recalcula entre los activos cada vez que uno termina.
+    final class Proporcional implements FrameAllocator {
+        private long[] np;
+
+        public int[] inicial(Vista v, int marcosTotales, long[] np) {
+            this.np = np;
+            int[] limite = new int[v.procesos()];
+            rebalancear(v, marcosTotales, limite);
+            return limite;
+        }
+
+        public int alTerminar(int pid, Vista v) { return DEVOLVER; }
+
+        public void rebalancear(Vista v, int marcosTotales, int[] limite) {
+            long suma = 0;
+            int activos = 0;
+            for (int pid = 0; pid < v.procesos(); pid++) {
+                if (v.activo(pid)) {
+                    suma += Math.max(1, np[pid]);
+                    activos++;
+                }
+            }
+            if (activos == 0) return;
+            // Un marco garantizado a cada uno y el resto en proporcion
+            int libres = marcosTotales - activos;
+            int asignados = 0;
+            for (int pid = 0; pid < v.procesos(); pid++) {
+                if (!v.activo(pid)) continue;
+                limite[pid] = 1 + (int) (libres * (double) Math.max(1, np[pid]) / suma);
+                asignados += limite[pid];
+            }
+            // Lo que deja el redondeo, de a uno a los mas grandes primero
+            for (int pid : porMayor(v, np)) {
+                if (asignados >= marcosTotales) break;
+                limite[pid]++;
+                asignados++;
+            }
+        }
+    }
+
+    // Page-Fault Frequency: cada ventana mide la tasa de fallos de cada proceso;
+    // por encima de ALTA recibe marcos (primero el de mayor tasa, mientras haya
+    // libres). Por debajo de BAJA cede, pero solo si no quedan libres y otro
+    // proceso esta por encima de ALTA: sin esa demanda quitarle marcos solo lo
+    // haria fallar de nuevo. Al terminar un proceso sus marcos quedan libres
+    // para el siguiente rebalanceo.
+    final class PFF implements FrameAllocator {
+        static final double ALTA = 0.10, BAJA = 0.01;
+        static final long VENTANA = 1L << 12; // referencias por proceso
+
+        private long[] refsPrevias, fallosPrevios;
+
+        public int[] inicial(Vista v, int marcosTotales, long[] np) {
+            refsPrevias = new long[v.procesos()];
+            fallosPrevios = new long[v.procesos()];
+            return partesIguales(v, marcosTotales);
+        }
+
+        public int alTerminar(int pid, Vista v) { return DEVOLVER; }
+
+        public long intervalo(int activos) { return VENTANA * Math.max(1, activos); }
+
+        public void guardar(DataOutput out) throws IOException {
+            for (int pid = 0; pid < refsPrevias.length; pid++) {
+                out.writeLong(refsPrevias[pid]);
+                out.writeLong(fallosPrevios[pid]);
+            }
+        }
+
+        public void cargar(DataInput in) throws IOException {
+            for (int pid = 0; pid < refsPrevias.length; pid++) {
+                refsPrevias[pid] = in.readLong();
+                fallosPrevios[pid] = in.readLong();
+            }
+        }
+
+        public void rebalancear(Vista v, int marcosTotales, int[] limite) {
+            int n = v.procesos();
+            double[] tasa = new double[n];
+            long libres = marcosTotales;
+            boolean demanda = false;
+            for (int pid = 0; pid < n; pid++) {
+                long r = v.referencias(pid) - refsPrevias[pid];
+                long f = v.fallos(pid) - fallosPrevios[pid];
+                refsPrevias[pid] = v.referencias(pid);
+                fallosPrevios[pid] = v.fallos(pid);
+                if (!v.activo(pid)) continue;
+                tasa[pid] = r > 0 ? (double) f / r : 0.0;
+                if (tasa[pid] > ALTA) demanda = true;
+                libres -= limite[pid];
+            }
+            if (demanda && libres <= 0) {
+                for (int pid = 0; pid < n; pid++) {
+                    if (!v.activo(pid) || tasa[pid] >= BAJA || limite[pid] <= 1) continue;
+                    int cede = Math.max(1, limite[pid] / 8);
+                    limite[pid] -= cede;
+                    libres += cede;
+                }
+            }
+            for (int pid : porMayor(v, tasa)) {
+                if (libres <= 0) break;
+                if (tasa[pid] <= ALTA) break;
+                int extra = (int) Math.min(libres, Math.max(1, limite[pid] / 8));
+                limite[pid] += extra;
+                libres -= extra;
+            }
+        }
+    }
+
+    // Conjunto de trabajo: cada ventana, el limite sigue a las paginas
+    // distintas que el proceso uso en ella (W(t, ventana)). Como en
+    // Proporcional, un marco a cada activo y el resto en proporcion a su
+    // conjunto de trabajo; lo que deja el redondeo va de a uno a los de mayor
+    // conjunto, asi que la suma es exactamente marcosTotales.
+    final class ConjuntoTrabajo implements FrameAllocator {
+        static final long VENTANA = 1L << 12; // referencias por proceso
+
+        public int[] inicial(Vista v, int marcosTotales, long[] np) {
+            return partesIguales(v, marcosTotales);
+        }
+
+        public int alTerminar(int pid, Vista v) { return DEVOLVER; }
+
+        public long intervalo(int activos) { return VENTANA * Math.max(1, activos); }
+
+        public boolean necesitaPaginasRecientes() { return true; }
+
+        public void rebalancear(Vista v, int marcosTotales, int[] limite) {
+            long[] ws = new long[v.procesos()];
+            long demanda = 0;
+            int activos = 0;
+            for (int pid = 0; pid < v.procesos(); pid++) {
+                if (!v.activo(pid)) continue;
+                ws[pid] = Math.max(1, v.paginasRecientes(pid));
+                demanda += ws[pid];
+                activos++;
+            }
+            if (activos == 0) return;
+            int libres = marcosTotales - activos;
+            int asignados = 0;
+            for (int pid = 0; pid < v.procesos(); pid++) {
+                if (!v.activo(pid)) continue;
+                limite[pid] = 1 + (int) (libres * (double) ws[pid] / demanda);
+                asignados += limite[pid];
+            }
+            for (int pid : porMayor(v, ws)) {
+                if (asignados >= marcosTotales) break;
+                limite[pid]++;
+                asignados++;
+            }
+        }
+    }
+
+    // pids activos de mayor a menor valor (empate: menor pid primero)
+    private static int[] porMayor(Vista v, long[] valor) {
+        double[] d = new double[valor.length];
+        for (int k = 0; k < valor.length; k++) d[k] = valor[k];
+        return porMayor(v, d);
+    }
+
+    private static int[] porMayor(Vista v, double[] valor) {
+        return java.util.stream.IntStream.range(0, v.procesos())
+                .filter(v::activo)
+                .boxed()
+                .sorted((a, b) -> valor[a] != valor[b] ? Double.compare(valor[b], valor[a]) : Integer.compare(a, b))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,45 @@
+// Cursor sobre la secuencia de paginas referenciadas por un proceso.
+// Proceso solo avanza hacia adelante, asi que no hace falta tener la traza
+// completa en memoria (ver TrazaMapeada).
+interface FuentePaginas extends AutoCloseable {
+    boolean hayMas();
+
+    // Pagina de la referencia actual; solo valido si hayMas()
+    long actual();
+
+    void avanzar();
+
+    // Cota inferior de las referencias pendientes, como maximo k. Ninguna
+    // traza puede terminar en menos pasos que esta cota (ver simularParalelo).
+    long restantesHasta(long k);
+
+    // Rachas (ver TrazaRLE): si la referencia actual abre una repeticion de un
+    // grupo de paginas, el tamaño del grupo; 0 si no o si la fuente no lo sabe
+    default int grupo() { return 0; }
+
+    // Pagina k del grupo actual (0 <= k < grupo())
+    default long paginaDelGrupo(int k) { throw new UnsupportedOperationException(); }
+
+    // Repeticiones del grupo que quedan, incluida la actual (0 si grupo() == 0)
+    default long repeticiones() { return 0; }
+
+    // Avanza k repeticiones completas del grupo (k <= repeticiones())
+    default void saltarRepeticiones(long k) { throw new UnsupportedOperationException(); }
+
+    // true si la fuente informa grupos; Opcion2 la recorre por epocas
+    default boolean porRachas() { return false; }
+
+    @Override
+    default void close() {}
+
+    // Cursor sobre una traza ya cargada en memoria
+    static FuentePaginas de(long[] paginas) {
+        return new FuentePaginas() {
+            private int indice = 0;
+            public boolean hayMas() { return indice < paginas.length; }
+            public long actual()    { return paginas[indice]; }
+            public void avanzar()   { indice++; }
+            public long restantesHasta(long k) { return Math.min(k, paginas.length - indice); }
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,29 @@
+import java.io.IOException;
+
+// Recorre M3 = M1 + M2 fila a fila sobre el layout contiguo m1|m2|m3 llevando
+// (pagina, offset) de cada matriz con sumas y comparaciones, sin dividir por
+// celda. Las celdas se emiten en rachas: tramos de la fila en los que ninguna
+// de las tres matrices cambia de pagina. Es el patron "filas" de AccessPattern.
+final class GeneradorDirecciones implements AccessPattern {
+    private final int tp, nf, nc, elemSize;
+
+    GeneradorDirecciones(int tp, int nf, int nc, int elemSize) {
+        this.tp = tp;
+        this.nf = nf;
+        this.nc = nc;
+        this.elemSize = elemSize;
+    }
+
+    public long referencias() { return 3L * nf * nc; }
+
+    public void generar(SalidaTraza out) throws IOException {
+        SalidaTraza.Racha r = AccessPattern.rachaSuma(elemSize); // R,R,W por celda
+        // Bases en (page,offset): unica division, al inicio. Al terminar una
+        // fila cada posicion queda al comienzo de la siguiente.
+        AccessPattern.Posicion[] pos = AccessPattern.bases(tp, nf, nc, elemSize);
+        for (int i = 0; i < nf; i++) {
+            for (int k = 0; k < 3; k++) r.fila[k] = i;
+            AccessPattern.tramo(out, r, pos, 0, nc);
+        }
+    }
+}
\ No newline at end of file
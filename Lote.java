@@ -0,0 +1,337 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Modo por lotes: corre muchas simulaciones en la misma JVM, sin preguntas, y
+// escribe los resultados en JSON.
+//
+//   java UI --lote trabajos.txt [--salida resultados.json]
+//   java UI CONFIG=config.txt MARCOS=8,16 POLITICA=lru,aging
+//
+// Cada linea del archivo de trabajos (o los argumentos) es una lista de
+// CLAVE=v1,v2,... y se corre el producto cartesiano:
+//   CONFIG=config.txt          genera y simula en memoria (tuberia, sin archivos)
+//     PATRON=filas             kernel generado (ver AccessPattern), solo con CONFIG
+//   TRAZAS=dir NPROC=n         simula proc<i>.txt/.bin/.rle ya generados (se validan antes)
+//   MARCOS=8,16                marcos totales (multiplo de NPROC); obligatorio
+//   POLITICA=aging             o todas          ASIGNACION=fallos
+//   ASIGNACION=global COMPARTIDAS=0   reemplazo global (solo clock), paginas [0, N) comunes
+//   HILOS=1                    CALENTAR=0 (corridas previas sin medir, para el JIT)
+//   TLB=0 VIAS=4               TLB por proceso (0 = sin TLB)
+//   LATENCIAS=1:100:8000000    ns de TLB:RAM:SWAP (o d) para informar el AMAT
+// Las rutas relativas se resuelven desde la carpeta del archivo de trabajos; un
+// valor con espacios va entre comillas. Lineas vacias y # son comentarios.
+//
+// Arranque: el JSON incluye arranqueMs (inicio de la JVM hasta main). Para
+// bajarlo en corridas cortas se puede usar un archivo CDS de las clases (CDS
+// solo acepta clases en un jar, no en una carpeta):
+//   jar cf caso2.jar *.class
+//   java -XX:ArchiveClassesAtExit=caso2.jsa -cp caso2.jar UI --lote trabajos.txt   (una vez)
+//   java -XX:SharedArchiveFile=caso2.jsa -cp caso2.jar UI --lote trabajos.txt
+final class Lote {
+    private static final PrintStream OUT = System.out;
+    private static final PrintStream NULO = new PrintStream(OutputStream.nullOutputStream());
+    private static final Pattern PAR = Pattern.compile("([A-Za-z]+)=(\"[^\"]*\"|\\S+)");
+    private static final List<String> CLAVES = List.of(
+            "CONFIG", "TRAZAS", "NPROC", "MARCOS", "POLITICA", "ASIGNACION", "HILOS", "CALENTAR", "TLB", "VIAS", "LATENCIAS", "PATRON", "COMPARTIDAS");
+
+    private Lote() {}
+
+    public static void main(String[] args) {
+        System.exit(ejecutar(args));
+    }
+
+    // 0 si todos los trabajos terminaron bien, 1 si alguno fallo, 2 si los
+    // argumentos o el archivo de trabajos no son validos
+    static int ejecutar(String[] args) {
+        long arranque = ManagementFactory.getRuntimeMXBean().getUptime();
+        try {
+            Path lote = null, salida = null;
+            List<String> sueltos = new ArrayList<>();
+            for (int k = 0; k < args.length; k++) {
+                if (args[k].equals("--lote") && k + 1 < args.length) lote = Paths.get(args[++k]);
+                else if (args[k].equals("--salida") && k + 1 < args.length) salida = Paths.get(args[++k]);
+                else if (args[k].contains("=")) sueltos.add(args[k]);
+                else throw new IllegalArgumentException("Argumento invalido: " + args[k]
+                        + ". Use --lote archivo [--salida archivo.json] o CLAVE=valor");
+            }
+
+            List<Trabajo> trabajos = new ArrayList<>();
+            if (lote != null) {
+                Path base = lote.toAbsolutePath().getParent();
+                int n = 0;
+                for (String raw : Files.readAllLines(lote, StandardCharsets.UTF_8)) {
+                    n++;
+                    String line = raw.trim();
+                    if (line.isEmpty() || line.startsWith("#")) continue;
+                    try {
+                        expandir(leerLinea(line), base, trabajos);
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException(lote.getFileName() + ":" + n + ": " + e.getMessage());
+                    }
+                }
+            }
+            if (!sueltos.isEmpty()) {
+                expandir(leerLinea(String.join(" ", sueltos)), Paths.get("").toAbsolutePath(), trabajos);
+            }
+            if (trabajos.isEmpty()) throw new IllegalArgumentException("No hay trabajos para correr.");
+
+            long t0 = System.nanoTime();
+            for (Trabajo t : trabajos) {
+                t.correr();
+                if (!t.ok) System.err.println("[ERROR] trabajo " + t.numero + ": " + t.error);
+            }
+            long totalMs = (System.nanoTime() - t0) / 1_000_000;
+
+            if (salida == null) {
+                Writer w = new OutputStreamWriter(OUT, StandardCharsets.UTF_8);
+                escribirJSON(w, arranque, totalMs, trabajos);
+                w.flush();
+            } else {
+                try (Writer w = Files.newBufferedWriter(salida, StandardCharsets.UTF_8)) {
+                    escribirJSON(w, arranque, totalMs, trabajos);
+                }
+                System.err.println("Resultados de " + trabajos.size() + " trabajos en " + salida);
+            }
+            return trabajos.stream().allMatch(t -> t.ok) ? 0 : 1;
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println("[ERROR] " + e.getMessage());
+            return 2;
+        }
+    }
+
+    private static Map<String, String[]> leerLinea(String line) {
+        Map<String, String[]> kv = new LinkedHashMap<>();
+        Matcher m = PAR.matcher(line);
+        int fin = 0;
+        while (m.find()) {
+            if (!line.substring(fin, m.start()).isBlank()) {
+                throw new IllegalArgumentException("Texto invalido: '" + line.substring(fin, m.start()).trim() + "'. Use CLAVE=valor");
+            }
+            String k = m.group(1).toUpperCase(Locale.ROOT);
+            if (!CLAVES.contains(k)) throw new IllegalArgumentException("Clave desconocida: " + k);
+            String v = m.group(2);
+            if (v.startsWith("\"")) {
+                kv.put(k, new String[]{v.substring(1, v.length() - 1)});
+            } else {
+                kv.put(k, v.split(","));
+            }
+            fin = m.end();
+        }
+        if (!line.substring(fin).isBlank()) {
+            throw new IllegalArgumentException("Texto invalido: '" + line.substring(fin).trim() + "'. Use CLAVE=valor");
+        }
+        return kv;
+    }
+
+    private static void expandir(Map<String, String[]> kv, Path base, List<Trabajo> trabajos) {
+        boolean config = kv.containsKey("CONFIG");
+        if (config == kv.containsKey("TRAZAS")) throw new IllegalArgumentException("Indique CONFIG= o TRAZAS= (solo uno).");
+        if (!config && !kv.containsKey("NPROC")) throw new IllegalArgumentException("TRAZAS= requiere NPROC=.");
+        if (!kv.containsKey("MARCOS")) throw new IllegalArgumentException("Falta MARCOS=.");
+        if (!config && kv.containsKey("PATRON")) throw new IllegalArgumentException("PATRON= solo se usa con CONFIG=.");
+
+        List<String> politicas = new ArrayList<>();
+        for (String p : kv.getOrDefault("POLITICA", new String[]{"aging"})) {
+            String n = ReplacementPolicy.normalizar(p);
+            if (n.equals("todas")) {
+                politicas.addAll(Arrays.asList(ReplacementPolicy.NOMBRES));
+            } else if (Arrays.asList(ReplacementPolicy.NOMBRES).contains(n)) {
+                politicas.add(n);
+            } else {
+                throw new IllegalArgumentException("Politica desconocida '" + p + "'. Use "
+                        + String.join(", ", ReplacementPolicy.NOMBRES) + " o todas");
+            }
+        }
+        String[] asignaciones = kv.getOrDefault("ASIGNACION", new String[]{"fallos"});
+        for (String a : asignaciones) {
+            if (!FrameAllocator.normalizar(a).equals(FrameAllocator.GLOBAL)) FrameAllocator.crear(a);
+        }
+        int compartidas = entero(kv.getOrDefault("COMPARTIDAS", new String[]{"0"})[0], "COMPARTIDAS", 0);
+        int calentar = entero(kv.getOrDefault("CALENTAR", new String[]{"0"})[0], "CALENTAR", 0);
+        int vias = entero(kv.getOrDefault("VIAS", new String[]{"4"})[0], "VIAS", 1);
+        ModeloLatencia latencias = kv.containsKey("LATENCIAS") ? ModeloLatencia.leer(kv.get("LATENCIAS")[0]) : null;
+
+        for (String fuente : kv.get(config ? "CONFIG" : "TRAZAS")) {
+            Path ruta = base.resolve(fuente);
+            UI.Config cfg = null;
+            int nproc;
+            String[] patrones = {"filas"};
+            if (config) {
+                cfg = UI.leerConfig(ruta);
+                nproc = cfg.nproc;
+                patrones = kv.getOrDefault("PATRON", patrones);
+                for (String patron : patrones) {
+                    for (int[] sz : cfg.sizes) AccessPattern.crear(patron, cfg.tp, sz[0], sz[1], UI.ELEM_SIZE);
+                }
+            } else {
+                nproc = entero(kv.get("NPROC")[0], "NPROC", 1);
+                UI.validarProcFiles(ruta, nproc);
+                ValidadorTrazas.Informe informe = ValidadorTrazas.validar(ruta, nproc,
+                        Math.min(nproc, Runtime.getRuntime().availableProcessors()));
+                if (informe.error != null) throw new IllegalArgumentException("Traza invalida: " + informe.error);
+                System.err.println("[Validacion] " + ruta + ": " + informe);
+            }
+            for (String patron : patrones)
+            for (String marcos : kv.get("MARCOS"))
+            for (String politica : politicas)
+            for (String asignacion : asignaciones)
+            for (String hilos : kv.getOrDefault("HILOS", new String[]{"1"}))
+            for (String tlb : kv.getOrDefault("TLB", new String[]{"0"})) {
+                int m = entero(marcos, "MARCOS", 1);
+                int entradas = entero(tlb, "TLB", 0);
+                if (entradas > 0) new TLB(entradas, Math.min(vias, entradas));
+                if (m % nproc != 0) {
+                    throw new IllegalArgumentException("El numero de marcos (" + m + ") debe ser MULTIPLO de NPROC (" + nproc + ").");
+                }
+                trabajos.add(new Trabajo(trabajos.size() + 1, ruta, cfg, AccessPattern.normalizar(patron), nproc, m, politica,
+                        FrameAllocator.normalizar(asignacion), entero(hilos, "HILOS", 1), calentar,
+                        entradas, Math.min(vias, entradas), latencias, compartidas));
+            }
+        }
+    }
+
+    private static int entero(String s, String clave, int minimo) {
+        if (!s.trim().matches("\\d+") || Integer.parseInt(s.trim()) < minimo) {
+            throw new IllegalArgumentException(clave + " debe ser un entero >= " + minimo + ": '" + s + "'");
+        }
+        return Integer.parseInt(s.trim());
+    }
+
+    private static final class Trabajo {
+        final int numero;
+        final Path fuente;
+        final UI.Config cfg; // null: trazas en disco
+        final String patron;
+        final int nproc, marcos, hilos, calentar, tlb, vias, compartidas;
+        final String politica, asignacion;
+        final ModeloLatencia latencias;
+        boolean ok;
+        String error;
+        long ms;
+        List<Opcion2.Resultado> resultados = List.of();
+
+        Trabajo(int numero, Path fuente, UI.Config cfg, String patron, int nproc, int marcos, String politica,
+                String asignacion, int hilos, int calentar, int tlb, int vias, ModeloLatencia latencias, int compartidas) {
+            this.numero = numero;
+            this.fuente = fuente;
+            this.cfg = cfg;
+            this.patron = patron;
+            this.nproc = nproc;
+            this.marcos = marcos;
+            this.politica = politica;
+            this.asignacion = asignacion;
+            this.hilos = hilos;
+            this.calentar = calentar;
+            this.tlb = tlb;
+            this.vias = vias;
+            this.latencias = latencias;
+            this.compartidas = compartidas;
+        }
+
+        // La salida de Opcion2 se descarta; los resultados se toman de getResultados
+        void correr() {
+            System.setOut(NULO);
+            try {
+                for (int k = 0; k < calentar; k++) simular(new Opcion2());
+                Opcion2 o = new Opcion2();
+                long t0 = System.nanoTime();
+                ok = simular(o);
+                ms = (System.nanoTime() - t0) / 1_000_000;
+                if (ok) resultados = o.getResultados();
+                else error = o.getLastError() != null ? o.getLastError() : "Fallo en la simulacion.";
+            } catch (RuntimeException e) {
+                ok = false;
+                error = String.valueOf(e.getMessage());
+            } finally {
+                System.setOut(OUT);
+            }
+        }
+
+        private boolean simular(Opcion2 o) {
+            o.setHilos(hilos);
+            o.setAsignacion(asignacion);
+            o.setPaginasCompartidas(compartidas);
+            o.setTLB(tlb, vias);
+            o.setLatencias(latencias);
+            o.setPatron(patron);
+            if (cfg != null) {
+                return o.runTuberia(cfg.tp, cfg.nproc, cfg.sizes, UI.ELEM_SIZE, marcos, politica, null, false);
+            }
+            return o.runOpcion2(nproc, marcos, fuente, politica);
+        }
+    }
+
+    private static void escribirJSON(Writer w, long arranqueMs, long totalMs, List<Trabajo> trabajos) throws IOException {
+        w.write("{\n  \"arranqueMs\": " + arranqueMs + ",\n  \"totalMs\": " + totalMs + ",\n  \"trabajos\": [\n");
+        for (int k = 0; k < trabajos.size(); k++) {
+            Trabajo t = trabajos.get(k);
+            long refs = 0, fallos = 0, swap = 0, tlbHits = 0;
+            double costo = 0;
+            for (Opcion2.Resultado r : t.resultados) {
+                refs += r.referencias;
+                fallos += r.fallos;
+                swap += r.swap;
+                tlbHits += r.tlbHits;
+                costo += r.amat * r.referencias;
+            }
+            w.write(String.format(Locale.ROOT,
+                    "    {\"trabajo\": %d, \"%s\": %s, %s\"procesos\": %d, \"marcos\": %d, \"politica\": \"%s\", "
+                    + "\"asignacion\": \"%s\", %s\"hilos\": %d, \"tlb\": %d, \"vias\": %d, \"ok\": %b, ",
+                    t.numero, t.cfg != null ? "config" : "trazas", texto(t.fuente.toString()),
+                    t.cfg != null ? "\"patron\": " + texto(t.patron) + ", " : "", t.nproc, t.marcos,
+                    t.politica, t.asignacion,
+                    t.asignacion.equals(FrameAllocator.GLOBAL) ? "\"compartidas\": " + t.compartidas + ", " : "",
+                    t.hilos, t.tlb, t.vias, t.ok));
+            if (!t.ok) {
+                w.write("\"error\": " + texto(t.error) + "}" + (k + 1 < trabajos.size() ? "," : "") + "\n");
+                continue;
+            }
+            w.write(String.format(Locale.ROOT,
+                    "\"ms\": %d, \"referencias\": %d, \"fallos\": %d, \"hits\": %d, \"swap\": %d, \"tasa_fallos\": %.6f%s,\n"
+                    + "     \"por_proceso\": [",
+                    t.ms, refs, fallos, refs - fallos, swap, refs > 0 ? (double) fallos / refs : 0.0,
+                    jerarquia(t, tlbHits, refs > 0 ? costo / refs : 0.0)));
+            for (int i = 0; i < t.resultados.size(); i++) {
+                Opcion2.Resultado r = t.resultados.get(i);
+                w.write(String.format(Locale.ROOT,
+                        "%s{\"proceso\": %d, \"referencias\": %d, \"fallos\": %d, \"hits\": %d, \"swap\": %d%s}",
+                        i > 0 ? ", " : "", r.pid, r.referencias, r.fallos, r.hits(), r.swap,
+                        jerarquia(t, r.tlbHits, r.amat)));
+            }
+            w.write("]}" + (k + 1 < trabajos.size() ? "," : "") + "\n");
+        }
+        w.write("  ]\n}\n");
+    }
+
+    // Campos de TLB y AMAT, solo si el trabajo los pidio
+    private static String jerarquia(Trabajo t, long tlbHits, double amat) {
+        String s = t.tlb > 0 ? ", \"tlb_hits\": " + tlbHits : "";
+        return t.latencias != null ? s + String.format(Locale.ROOT, ", \"amat_ns\": %.3f", amat) : s;
+    }
+
+    private static String texto(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (char c : s.toCharArray()) {
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,117 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Mapa abierto long -> int (pagina -> posicion) con sondeo lineal y sin boxing.
+// Las bajas usan desplazamiento hacia atras, asi que no quedan lapidas.
+final class MapaPaginas {
+    static final int AUSENTE = -1;
+
+    private long[] claves;
+    private int[] valores; // AUSENTE marca casilla libre
+    private int mascara;
+    private int tam = 0;
+
+    MapaPaginas(int capacidadEsperada) {
+        int cap = 16;
+        while (cap < capacidadEsperada * 2L) cap <<= 1;
+        reservar(cap);
+    }
+
+    int tamano() { return tam; }
+
+    int get(long clave) {
+        int i = mezclar(clave) & mascara;
+        while (true) {
+            int v = valores[i];
+            if (v == AUSENTE) return AUSENTE;
+            if (claves[i] == clave) return v;
+            i = (i + 1) & mascara;
+        }
+    }
+
+    void put(long clave, int valor) {
+        int i = mezclar(clave) & mascara;
+        while (valores[i] != AUSENTE) {
+            if (claves[i] == clave) { valores[i] = valor; return; }
+            i = (i + 1) & mascara;
+        }
+        claves[i] = clave;
+        valores[i] = valor;
+        if (++tam * 2 > valores.length) rehash(valores.length << 1);
+    }
+
+    void remove(long clave) {
+        int i = mezclar(clave) & mascara;
+        while (true) {
+            if (valores[i] == AUSENTE) return;
+            if (claves[i] == clave) break;
+            i = (i + 1) & mascara;
+        }
+        // Desplaza hacia atras las entradas del mismo grupo
+        int hueco = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mascara;
+            if (valores[j] == AUSENTE) break;
+            int ideal = mezclar(claves[j]) & mascara;
+            // j se puede mover al hueco si su posicion ideal no esta en (hueco, j]
+            if (((j - ideal) & mascara) >= ((j - hueco) & mascara)) {
+                claves[hueco] = claves[j];
+                valores[hueco] = valores[j];
+                hueco = j;
+            }
+        }
+        valores[hueco] = AUSENTE;
+        tam--;
+    }
+
+    void clear() {
+        Arrays.fill(valores, AUSENTE);
+        tam = 0;
+    }
+
+    // Checkpoints: los pares en el orden de la tabla
+    void guardar(DataOutput out) throws IOException {
+        out.writeInt(tam);
+        for (int i = 0; i < valores.length; i++) {
+            if (valores[i] == AUSENTE) continue;
+            out.writeLong(claves[i]);
+            out.writeInt(valores[i]);
+        }
+    }
+
+    void cargar(DataInput in) throws IOException {
+        clear();
+        for (int n = in.readInt(); n > 0; n--) {
+            long clave = in.readLong();
+            put(clave, in.readInt());
+        }
+    }
+
+    private void reservar(int cap) {
+        claves = new long[cap];
+        valores = new int[cap];
+        Arrays.fill(valores, AUSENTE);
+        mascara = cap - 1;
+    }
+
+    private void rehash(int cap) {
+        long[] k = claves;
+        int[] v = valores;
+        reservar(cap);
+        tam = 0;
+        for (int i = 0; i < v.length; i++) {
+            if (v[i] != AUSENTE) put(k[i], v[i]);
+        }
+    }
+
+    // Finalizador de MurmurHash3: las paginas consecutivas quedan dispersas
+    private static int mezclar(long x) {
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        return (int) x;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,161 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Marcos del reemplazo global: un solo conjunto para todos los procesos, que
+// hilos distintos se disputan sin locks. Cada proceso tiene su tabla de
+// paginas (pagina -> marco, de tamaño NP) y una tabla aparte guarda las
+// paginas compartidas [0, compartidas), comunes a todos (M1 empieza en la
+// direccion 0: una matriz de entrada que todos leen). Cada marco sabe de quien
+// es su pagina (duenio), asi que un hit es leer la tabla y confirmar el dueño
+// del marco; solo se escribe el bit de referencia.
+// La victima la elige un CLOCK global: la manecilla es un contador atomico y
+// el marco se reserva con CAS mientras cambia de dueño, de modo que dos fallos
+// simultaneos nunca desalojan el mismo marco. Si dos procesos fallan a la vez
+// en la misma pagina compartida, el segundo ve la carga del primero y suelta
+// su marco sin tocarlo.
+// Un fallo hace perder el turno, asi que entre la carga y el reintento otros
+// procesos podrian desalojar la pagina una y otra vez. Por eso el marco recien
+// cargado queda fijado hasta que su proceso lo usa: cada proceso tiene a lo
+// sumo uno fijado y, con al menos un marco por proceso, siempre hay victima.
+final class MarcosGlobales {
+    static final int AUSENTE = -1;
+    private static final long LIBRE = -1;
+    // duenio = (pid + 1) << BITS_PAGINA | pagina; las compartidas van con pid + 1 = 0
+    private static final int BITS_PAGINA = 40;
+    private static final int EN_CAMBIO = 1, FIJADO = 2;
+
+    private final int marcos;
+    private final long compartidas;
+    private final AtomicIntegerArray[] tablas; // indice = pid
+    private final AtomicIntegerArray tablaCompartida;
+    private final AtomicLongArray duenio;
+    private final AtomicIntegerArray usado;   // bit de referencia del CLOCK
+    // 0 libre, EN_CAMBIO mientras un fallo o una baja cambian el dueño,
+    // FIJADO + pid desde que pid carga la pagina hasta que la usa
+    private final AtomicIntegerArray ocupado;
+    private final AtomicLong manecilla = new AtomicLong();
+    private final AtomicInteger sinUsar = new AtomicInteger(); // [sinUsar, marcos) nunca asignados
+
+    // paginasVirtuales[pid] = NP de cada proceso; compartidas = 0 para ninguna
+    MarcosGlobales(int marcos, long[] paginasVirtuales, long compartidas) {
+        if (marcos < Math.max(1, paginasVirtuales.length)) {
+            throw new IllegalArgumentException("El reemplazo global necesita al menos un marco por proceso ("
+                    + marcos + " marcos, " + paginasVirtuales.length + " procesos).");
+        }
+        this.marcos = marcos;
+        this.compartidas = Math.max(0, compartidas);
+        this.tablas = new AtomicIntegerArray[paginasVirtuales.length];
+        for (int pid = 0; pid < tablas.length; pid++) tablas[pid] = nuevaTabla(paginasVirtuales[pid], pid);
+        this.tablaCompartida = nuevaTabla(this.compartidas, -1);
+        this.duenio = new AtomicLongArray(marcos);
+        for (int m = 0; m < marcos; m++) duenio.set(m, LIBRE);
+        this.usado = new AtomicIntegerArray(marcos);
+        this.ocupado = new AtomicIntegerArray(marcos);
+    }
+
+    private static AtomicIntegerArray nuevaTabla(long paginas, int pid) {
+        if (paginas > Integer.MAX_VALUE - 8 || paginas >= 1L << BITS_PAGINA) {
+            throw new IllegalArgumentException("Demasiadas paginas virtuales para la tabla de "
+                    + (pid < 0 ? "paginas compartidas" : "proceso " + pid) + ": " + paginas);
+        }
+        AtomicIntegerArray t = new AtomicIntegerArray((int) paginas);
+        for (int k = 0; k < t.length(); k++) t.set(k, AUSENTE);
+        return t;
+    }
+
+    int marcos() { return marcos; }
+
+    // Marco con la pagina, o AUSENTE. Un hit marca el bit de referencia y
+    // suelta el marco si pid lo tenia fijado.
+    int buscar(int pid, long pagina) {
+        int m = tabla(pid, pagina).get((int) pagina);
+        if (m == AUSENTE || duenio.get(m) != clave(pid, pagina)) return AUSENTE;
+        if (usado.get(m) == 0) usado.set(m, 1); // sin escribir si ya esta: menos trafico de cache
+        if (ocupado.get(m) == FIJADO + pid) ocupado.compareAndSet(m, FIJADO + pid, 0);
+        return m;
+    }
+
+    // Tras un miss: carga la pagina en un marco libre o en la victima del
+    // CLOCK. Devuelve los accesos a SWAP, 1 si el marco estaba libre y 2 si
+    // hubo que desalojar, o 0 si otro proceso la cargo mientras tanto.
+    int cargar(int pid, long pagina) {
+        long clave = clave(pid, pagina);
+        AtomicIntegerArray t = tabla(pid, pagina);
+        int i = (int) pagina;
+        int m = victima();
+        long vieja = duenio.get(m);
+        // Desde aqui los hits sobre la pagina vieja fallan: el dueño ya no coincide
+        duenio.set(m, clave);
+        while (true) {
+            int actual = t.get(i);
+            if (actual != AUSENTE && actual != m && duenio.get(actual) == clave) {
+                duenio.set(m, vieja);
+                ocupado.set(m, 0);
+                return 0;
+            }
+            if (t.compareAndSet(i, actual, m)) break;
+        }
+        if (vieja != LIBRE) tablaDe(vieja).compareAndSet(paginaDe(vieja), m, AUSENTE);
+        usado.set(m, 1);
+        ocupado.set(m, FIJADO + pid);
+        return vieja == LIBRE ? 1 : 2;
+    }
+
+    // Termino pid: sus paginas privadas dejan los marcos libres (bit de
+    // referencia en 0, el CLOCK los toma en su proxima pasada). Las
+    // compartidas se quedan para los demas.
+    void liberar(int pid) {
+        long etiqueta = (long) (pid + 1) << BITS_PAGINA;
+        for (int m = 0; m < marcos; m++) {
+            long d = duenio.get(m);
+            if (d == LIBRE || (d & -(1L << BITS_PAGINA)) != etiqueta) continue;
+            if (!ocupado.compareAndSet(m, 0, EN_CAMBIO)) continue; // otro fallo ya lo esta desalojando
+            if (duenio.compareAndSet(m, d, LIBRE)) tablas[pid].compareAndSet(paginaDe(d), m, AUSENTE);
+            usado.set(m, 0);
+            ocupado.set(m, 0);
+        }
+    }
+
+    // Primero los marcos nunca usados; despues la manecilla pasa de largo los
+    // marcos ocupados o fijados, borra el bit de referencia de los usados y se
+    // queda con el primero que logra reservar
+    private int victima() {
+        if (sinUsar.get() < marcos) {
+            int m = sinUsar.getAndIncrement();
+            if (m < marcos && ocupado.compareAndSet(m, 0, EN_CAMBIO)) return m;
+        }
+        while (true) {
+            int m = (int) (manecilla.getAndIncrement() % marcos);
+            if (ocupado.get(m) != 0) continue;
+            if (usado.get(m) != 0) {
+                usado.set(m, 0);
+                continue;
+            }
+            if (ocupado.compareAndSet(m, 0, EN_CAMBIO)) return m;
+        }
+    }
+
+    private long clave(int pid, long pagina) {
+        return pagina < compartidas ? pagina : ((long) (pid + 1) << BITS_PAGINA) | pagina;
+    }
+
+    private AtomicIntegerArray tabla(int pid, long pagina) {
+        if (pagina < compartidas) return tablaCompartida;
+        AtomicIntegerArray t = tablas[pid];
+        if (pagina < 0 || pagina >= t.length()) {
+            throw new IllegalStateException("Pagina " + pagina + " fuera de NP=" + t.length() + " en proceso " + pid);
+        }
+        return t;
+    }
+
+    private AtomicIntegerArray tablaDe(long duenio) {
+        int pid = (int) (duenio >>> BITS_PAGINA) - 1;
+        return pid < 0 ? tablaCompartida : tablas[pid];
+    }
+
+    private static int paginaDe(long duenio) {
+        return (int) (duenio & ((1L << BITS_PAGINA) - 1));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,67 @@
+import java.util.Locale;
+
+// Receptor de metricas de Opcion2 mientras la simulacion corre. Opcion2 toma
+// una muestra cada 'intervalo' pasos globales; con metricas desactivadas el
+// bucle solo compara el contador de pasos con Long.MAX_VALUE.
+interface MetricasSimulacion {
+    // La muestra se reutiliza entre llamadas: copiar lo que se quiera guardar
+    void muestra(Muestra m);
+
+    // reasignarMarcos: 'marcos' marcos del proceso 'desde' pasan a 'hacia'
+    // (-1: vuelven al reparto del FrameAllocator)
+    default void reasignacion(int desde, int hacia, int marcos) {}
+
+    // Envia cada evento a las dos
+    static MetricasSimulacion ambas(MetricasSimulacion a, MetricasSimulacion b) {
+        return new MetricasSimulacion() {
+            public void muestra(Muestra m) { a.muestra(m); b.muestra(m); }
+            public void reasignacion(int desde, int hacia, int marcos) {
+                a.reasignacion(desde, hacia, marcos);
+                b.reasignacion(desde, hacia, marcos);
+            }
+        };
+    }
+
+    // Estado de la simulacion en un instante. Ventana = desde la muestra anterior.
+    final class Muestra {
+        long nanos;                   // desde el inicio de la simulacion
+        long pasos;                   // pasos globales (referencias con reintentos)
+        double referenciasPorSegundo; // en la ventana
+        long fallosVentana;
+        int enCola;                   // procesos pendientes en la cola de simular
+        boolean ultima;               // fin de la simulacion
+
+        // Por proceso, en orden de pid
+        final int[] pid;
+        final long[] conjuntoTrabajo; // paginas distintas referenciadas en la ventana
+        final int[] marcos;           // marcos ocupados
+        final long[] fallos;          // acumulados
+
+        Muestra(int nproc) {
+            pid = new int[nproc];
+            conjuntoTrabajo = new long[nproc];
+            marcos = new int[nproc];
+            fallos = new long[nproc];
+        }
+
+        int procesos() { return pid.length; }
+    }
+
+    // Una linea por muestra en System.out
+    final class Consola implements MetricasSimulacion {
+        public void muestra(Muestra m) {
+            StringBuilder sb = new StringBuilder(96);
+            sb.append(String.format(Locale.ROOT, "[Metricas] %.1f s, %d pasos, %.2f Mref/s, fallos en ventana: %d, en cola: %d, WS:",
+                    m.nanos / 1e9, m.pasos, m.referenciasPorSegundo / 1e6, m.fallosVentana, m.enCola));
+            for (int k = 0; k < m.procesos(); k++) {
+                sb.append(" p").append(m.pid[k]).append('=').append(m.conjuntoTrabajo[k])
+                  .append('/').append(m.marcos[k]);
+            }
+            System.out.println(sb);
+        }
+
+        public void reasignacion(int desde, int hacia, int marcos) {
+            System.out.println("[Metricas] Reasignados " + marcos + " marcos de proceso " + desde + " a proceso " + hacia);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,51 @@
+import java.util.Locale;
+
+// Costos (ns) para el tiempo efectivo de acceso a memoria (AMAT) de un proceso:
+//   cada referencia consulta la TLB (si hay)            tlb
+//   fallo de TLB: recorrido de la tabla de paginas      ram
+//   hit de pagina: el acceso al dato en RAM             ram
+//   cada acceso a SWAP (carga o descarga de pagina)     swap
+// Sin TLB todas las referencias recorren la tabla. Una referencia con fallo de
+// pagina no accede al dato: se reintenta y el reintento cuenta como hit.
+final class ModeloLatencia {
+    // Valores de referencia: TLB 1 ns, RAM 100 ns, disco 8 ms
+    static final ModeloLatencia TIPICO = new ModeloLatencia(1, 100, 8_000_000);
+
+    final long tlb, ram, swap;
+
+    ModeloLatencia(long tlb, long ram, long swap) {
+        if (tlb < 0 || ram < 0 || swap < 0) throw new IllegalArgumentException("Las latencias no pueden ser negativas.");
+        this.tlb = tlb;
+        this.ram = ram;
+        this.swap = swap;
+    }
+
+    // "tlb,ram,swap" (o separadas por ':'); "d" = TIPICO
+    static ModeloLatencia leer(String s) {
+        String t = s.trim();
+        if (t.equalsIgnoreCase("d")) return TIPICO;
+        String[] p = t.split("\\s*[,:]\\s*");
+        if (p.length != 3) throw new IllegalArgumentException("Latencias invalidas '" + s + "'. Use tlb,ram,swap en ns");
+        try {
+            return new ModeloLatencia(Long.parseLong(p[0]), Long.parseLong(p[1]), Long.parseLong(p[2]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Latencias invalidas '" + s + "'. Use tlb,ram,swap en ns");
+        }
+    }
+
+    // tlbHits < 0: proceso sin TLB
+    double amat(long referencias, long fallos, long swapAccesos, long tlbHits) {
+        if (referencias == 0) return 0.0;
+        long recorridos = tlbHits < 0 ? referencias : referencias - tlbHits;
+        double total = (tlbHits < 0 ? 0 : referencias * (double) tlb)
+                + recorridos * (double) ram
+                + (referencias - fallos) * (double) ram
+                + swapAccesos * (double) swap;
+        return total / referencias;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "TLB %d ns, RAM %d ns, SWAP %d ns", tlb, ram, swap);
+    }
+}
\ No newline at end of file
@@ -1,77 +1,152 @@
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class Opcion1 {
     private String lastError;
+    private int hilos = 1;
+    private String patron = "filas";
+    private boolean rle = false, gzip = false;
 
     public String getLastError() { return lastError; }
     private boolean fail(String msg) { this.lastError = msg; return false; }
 
+    // hilos > 1 genera varios proc<i> a la vez; cada archivo es identico al secuencial
+    public void setHilos(int hilos) { this.hilos = Math.max(1, hilos); }
+
+    // Kernel que se recorre (ver AccessPattern); "filas" es el original
+    public void setPatron(String patron) { this.patron = AccessPattern.normalizar(patron); }
+
+    // rle=true escribe proc<i>.rle (TrazaRLE, solo paginas) en lugar de texto o binario
+    public void setRLE(boolean rle, boolean gzip) { this.rle = rle; this.gzip = rle && gzip; }
+
 //Genera proc<i>.txt para cada proceso, verifica si los datos son correctos    
 public boolean runOpcion1(int tp, int nproc, List<int[]> sizes, int elemSize, Path outDir) {
-    for (int pid = 0; pid < nproc; pid++) {
-        int[] sz = sizes.get(pid);
-        int nf = sz[0], nc = sz[1];
-
-        long cells = (long) nf * (long) nc;
-        long nr    = 3L * cells;                 // R,R,W por celda
-        long bytes = 3L * cells * elemSize;      // tamaño total contiguo m1|m2|m3
-        long np    = (bytes + tp - 1L) / tp;     // ceil(bytes/TP)
-
-        long rowBytes = (long) nc * elemSize;    // bytes por fila
-        long bytesM1  = cells * elemSize;        // tamaño de una matriz
-        // Bases en (page,offset):
-        long baseP1 = 0,            baseO1 = 0;
-        long baseP2 = bytesM1 / tp, baseO2 = bytesM1 % tp;
-        long baseP3 = (2L*bytesM1) / tp, baseO3 = (2L*bytesM1) % tp;
-
-        StringBuilder sb = new StringBuilder(Math.max(1024, (int)Math.min(nr, 1000)*32));
-        sb.append("TP=").append(tp).append('\n');
-        sb.append("NF=").append(nf).append('\n');
-        sb.append("NC=").append(nc).append('\n');
-        sb.append("NR=").append(nr).append('\n');
-        sb.append("NP=").append(np).append('\n');
-
-        for (int i = 0; i < nf; i++) {
-            long baseRowDelta = (long) i * rowBytes; // bytes desde el inicio de la matriz hasta la fila i
-            for (int j = 0; j < nc; j++) {
-                long delta = baseRowDelta + (long) j * elemSize;
-
-                long page1 = baseP1 + (baseO1 + delta) / tp;
-                long off1  = (baseO1 + delta) % tp;
-
-                long page2 = baseP2 + (baseO2 + delta) / tp;
-                long off2  = (baseO2 + delta) % tp;
-
-                long page3 = baseP3 + (baseO3 + delta) / tp;
-                long off3  = (baseO3 + delta) % tp;
-
-                sb.append("M1:[").append(i).append('-').append(j).append("],")
-                  .append(page1).append(',').append(off1).append(",r\n");
-
-                sb.append("M2:[").append(i).append('-').append(j).append("],")
-                  .append(page2).append(',').append(off2).append(",r\n");
-
-                sb.append("M3:[").append(i).append('-').append(j).append("],")
-                  .append(page3).append(',').append(off3).append(",w\n");
+    return runOpcion1(tp, nproc, sizes, elemSize, outDir, false);
+}
+
+// binario=true escribe proc<i>.bin en el formato de TrazaBinaria
+public boolean runOpcion1(int tp, int nproc, List<int[]> sizes, int elemSize, Path outDir, boolean binario) {
+    long inicio = System.nanoTime();
+    for (int[] sz : sizes) {
+        try {
+            AccessPattern.crear(patron, tp, sz[0], sz[1], elemSize);
+        } catch (IllegalArgumentException e) {
+            return fail(e.getMessage());
+        }
+    }
+    List<Escrito> escritos = new ArrayList<>(nproc);
+    if (hilos <= 1 || nproc <= 1) {
+        for (int pid = 0; pid < nproc; pid++) {
+            try {
+                escritos.add(reportar(generarProceso(pid, tp, sizes.get(pid), elemSize, outDir, binario)));
+            } catch (IOException e) {
+                return fail(e.getMessage());
             }
         }
-// Escribe procs
-        Path outFile = outDir.resolve("proc" + pid + ".txt");
-        try {
-            Files.writeString(outFile, sb.toString(), StandardCharsets.UTF_8,
-                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-            System.out.println("[Opcion1] Escrito " + outFile.getFileName()
-                + " (TP=" + tp + ", NF=" + nf + ", NC=" + nc + ", NR=" + nr + ", NP=" + np + ")");
-        } catch (IOException e) {
-            this.lastError = "No se pudo escribir " + outFile + ": " + e.getMessage();
-            return false;
+        reportarTotal(escritos, System.nanoTime() - inicio);
+        return true;
+    }
+
+    // Cada archivo depende solo de su tamaño: un proceso por tarea, a lo sumo
+    // 'hilos' a la vez, cada una con su propio buffer de salida
+    ExecutorService pool = Executors.newFixedThreadPool(Math.min(hilos, nproc));
+    try {
+        List<Future<Escrito>> tareas = new ArrayList<>(nproc);
+        for (int pid = 0; pid < nproc; pid++) {
+            final int id = pid;
+            tareas.add(pool.submit(() -> generarProceso(id, tp, sizes.get(id), elemSize, outDir, binario)));
         }
+        // Se reporta en orden de pid para que la salida sea estable
+        for (Future<Escrito> f : tareas) {
+            try {
+                escritos.add(reportar(f.get()));
+            } catch (ExecutionException e) {
+                pool.shutdownNow();
+                return fail(e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pool.shutdownNow();
+                return fail("Generacion interrumpida");
+            }
+        }
+    } finally {
+        pool.shutdown();
     }
+    reportarTotal(escritos, System.nanoTime() - inicio);
     return true;
 }
+
+// Genera la traza de un proceso; lanza IOException con el mensaje para lastError
+private Escrito generarProceso(int pid, int tp, int[] sz, int elemSize, Path outDir, boolean binario) throws IOException {
+    long inicio = System.nanoTime();
+    int nf = sz[0], nc = sz[1];
+
+    AccessPattern kernel = AccessPattern.crear(patron, tp, nf, nc, elemSize);
+    long cells = (long) nf * (long) nc;
+    long nr    = kernel.referencias();       // filas: R,R,W por celda
+    long bytes = 3L * cells * elemSize;      // tamaño total contiguo m1|m2|m3
+    long np    = (bytes + tp - 1L) / tp;     // ceil(bytes/TP)
+
+    // Escribe procs en streaming: la memoria usada no depende de NF x NC
+    Path outFile = rle ? TrazaRLE.archivo(outDir, pid) : archivoSalida(outDir, pid, binario);
+    try (SalidaTraza out = rle
+            ? new TrazaRLE.Escritor(outFile, new TrazaBinaria.Cabecera(tp, nf, nc, nr, np, elemSize), gzip)
+            : abrirSalida(outFile, tp, nf, nc, elemSize, kernel, binario)) {
+        // Paginas y offsets por sumas, emitidos en rachas de la misma pagina
+        kernel.generar(out);
+    } catch (IOException e) {
+        throw new IOException("No se pudo escribir " + outFile + ": " + e.getMessage(), e);
+    }
+    String resumen = outFile.getFileName()
+        + " (TP=" + tp + ", NF=" + nf + ", NC=" + nc + ", NR=" + nr + ", NP=" + np + ")";
+    return new Escrito(resumen, nr, Files.size(outFile), System.nanoTime() - inicio);
+}
+
+static Path archivoSalida(Path outDir, int pid, boolean binario) {
+    return outDir.resolve("proc" + pid + (binario ? ".bin" : ".txt"));
+}
+
+// Escritor de proc<i> con la cabecera ya escrita (tambien lo usa Opcion2.runTuberia).
+// NR y la disposicion de M2 dependen del patron; NP es siempre el layout m1|m2|m3.
+static SalidaTraza abrirSalida(Path outFile, int tp, int nf, int nc, int elemSize, AccessPattern kernel,
+                               boolean binario) throws IOException {
+    long nr = kernel.referencias();
+    long np = (3L * nf * nc * elemSize + tp - 1L) / tp;
+    return binario
+        ? new TrazaBinaria.Escritor(outFile, new TrazaBinaria.Cabecera(tp, nf, nc, nr, np, elemSize, kernel.disposicion()))
+        : new TrazaTexto.Escritor(outFile, tp, nf, nc, nr, np);
+}
+
+private static Escrito reportar(Escrito e) {
+    double seg = Math.max(e.nanos, 1) / 1e9;
+    System.out.printf(Locale.ROOT, "[Opcion1] Escrito %s en %.1f ms (%.2f Mref/s, %.1f MB/s)%n",
+        e.resumen, e.nanos / 1e6, e.referencias / seg / 1e6, e.bytes / seg / 1e6);
+    return e;
+}
+
+// Rendimiento agregado en tiempo de reloj (con hilos > 1 es menor que la suma)
+private static void reportarTotal(List<Escrito> escritos, long nanos) {
+    long refs = 0, bytes = 0;
+    for (Escrito e : escritos) { refs += e.referencias; bytes += e.bytes; }
+    double seg = Math.max(nanos, 1) / 1e9;
+    System.out.printf(Locale.ROOT, "[Opcion1] Total: %d archivos, %d referencias, %.1f MB en %.1f ms (%.2f Mref/s, %.1f MB/s)%n",
+        escritos.size(), refs, bytes / 1e6, nanos / 1e6, refs / seg / 1e6, bytes / seg / 1e6);
+}
+
+// Resultado de generar un proc<i>: lo que se imprime y las cifras de rendimiento
+private static final class Escrito {
+    final String resumen;
+    final long referencias, bytes, nanos;
+    Escrito(String resumen, long referencias, long bytes, long nanos) {
+        this.resumen = resumen; this.referencias = referencias; this.bytes = bytes; this.nanos = nanos;
+    }
+}
 }
\ No newline at end of file
@@ -1,39 +1,359 @@
+import java.io.BufferedReader;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class Opcion2 {
+    // Trazas a partir de este tamaño se leen mapeadas en lugar de cargarse en memoria
+    static final long UMBRAL_MAPEO = 64L << 20;
+    // Maximo de pasos por proceso en una epoca del modo paralelo
+    static final long PASOS_EPOCA = 1L << 16;
+
     private String lastError;
+    private int hilos = 1;
+    private MetricasSimulacion metricas;
+    private long intervaloMetricas;
+    private String asignacion = "fallos";
+    private String patron = "filas";
+    private List<Resultado> resultados = List.of();
+    private int entradasTLB = 0, viasTLB = 1;
+    private ModeloLatencia latencias;
+    private Checkpoint checkpoint;
+    private DataInputStream estadoPrevio; // checkpoint a retomar en la proxima simulacion
+    private long paginasCompartidas = 0;
+
+    // hilos > 1 activa simularParalelo; los resultados son identicos al secuencial.
+    // Las trazas RLE tambien van por epocas, aun con un hilo (ver procesarRondas).
+    public void setHilos(int hilos) {
+        this.hilos = Math.max(1, hilos);
+    }
+
+    // Muestra cada 'intervalo' pasos globales mientras simula; null desactiva
+    public void setMetricas(MetricasSimulacion metricas, long intervalo) {
+        this.metricas = intervalo > 0 ? metricas : null;
+        this.intervaloMetricas = intervalo;
+    }
+
+    // TLB por proceso delante de la tabla de marcos; entradas = 0 la desactiva
+    public void setTLB(int entradas, int vias) {
+        if (entradas > 0) new TLB(entradas, vias); // valida la geometria
+        this.entradasTLB = entradas;
+        this.viasTLB = vias;
+    }
+
+    // Con un modelo de latencias se informa el AMAT de cada proceso; null = no
+    public void setLatencias(ModeloLatencia latencias) {
+        this.latencias = latencias;
+    }
+
+    // Checkpoints periodicos de runOpcion2 (ver Checkpoint); null los desactiva
+    public void setCheckpoint(Checkpoint checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    // Kernel que generan los hilos de runTuberia (ver AccessPattern)
+    public void setPatron(String patron) {
+        this.patron = AccessPattern.normalizar(patron);
+    }
+
+    // Uno de FrameAllocator.NOMBRES; "fallos" es el reparto original.
+    // FrameAllocator.GLOBAL no reparte: reemplazo global (ver simularGlobal).
+    public void setAsignacion(String asignacion) {
+        this.asignacion = FrameAllocator.normalizar(asignacion);
+        if (!esGlobal()) FrameAllocator.crear(this.asignacion); // valida el nombre
+    }
+
+    // Reemplazo global: las paginas [0, paginas) son las mismas en todos los procesos
+    public void setPaginasCompartidas(long paginas) {
+        if (paginas < 0) throw new IllegalArgumentException("Las paginas compartidas no pueden ser negativas.");
+        this.paginasCompartidas = paginas;
+    }
+
+    private boolean esGlobal() {
+        return asignacion.equals(FrameAllocator.GLOBAL);
+    }
+
+    // Lo que el reemplazo global no combina; null si la corrida es valida
+    private String errorGlobal(String politica, int nproc, int marcosTotales) {
+        if (!esGlobal()) return null;
+        if (marcosTotales < nproc) {
+            // Cada proceso puede tener fijado el marco que acaba de cargar (ver MarcosGlobales)
+            return "El reemplazo global necesita al menos un marco por proceso.";
+        }
+        if (!ReplacementPolicy.normalizar(politica).equals("clock")) {
+            return "El reemplazo global usa un CLOCK compartido por todos los procesos: elija la politica clock.";
+        }
+        if (entradasTLB > 0) return "La TLB por proceso no se combina con el reemplazo global.";
+        if (checkpoint != null) return "Los checkpoints no se combinan con el reemplazo global (con varios hilos no es determinista).";
+        if (metricas != null) return "Las metricas periodicas no se combinan con el reemplazo global.";
+        return null;
+    }
 
     public String getLastError() { 
         return lastError; 
     }
 
     public boolean runOpcion2(int nproc, int marcosTotales, Path inDir) {
+        return runOpcion2(nproc, marcosTotales, inDir, "aging");
+    }
+
+    // politica: uno de ReplacementPolicy.NOMBRES
+    public boolean runOpcion2(int nproc, int marcosTotales, Path inDir, String politica) {
+        lastError = errorGlobal(politica, nproc, marcosTotales);
+        if (lastError != null) {
+            if (checkpoint != null) checkpoint.close();
+            return false;
+        }
         // Input
         int marcosPerProcess = marcosTotales / nproc;
-        List<List<Long>> processPages = new ArrayList<>();
+        List<FuentePaginas> fuentes = new ArrayList<>();
+        try {
+            // Crear procesos
+            List<Proceso> procesos = new ArrayList<>();
+            for (int pid = 0; pid < nproc; pid++) {
+                Path procFile = archivoProceso(inDir, pid);
+                ReplacementPolicy pol;
+                FuentePaginas fuente;
+                if (ReplacementPolicy.necesitaTraza(politica)) {
+                    // OPT precalcula el proximo uso: necesita la traza completa
+                    long[] pages = loadPages(procFile);
+                    if (pages == null) return false;
+                    fuente = FuentePaginas.de(pages);
+                    pol = ReplacementPolicy.crear(politica, pages);
+                } else {
+                    fuente = abrirFuente(procFile);
+                    if (fuente == null) return false;
+                    pol = ReplacementPolicy.crear(politica, null);
+                }
+                fuentes.add(fuente);
+                Proceso proceso = new Proceso(pid, fuente, marcosPerProcess, pol);
+                proceso.paginasVirtuales = paginasVirtuales(procFile);
+                procesos.add(proceso);
+            }
 
-        // Cargar datos
+            if (checkpoint == null) return simularEImprimir(procesos, marcosTotales, politica);
+            try {
+                estadoPrevio = checkpoint.abrir(firma(politica, marcosTotales, inDir, nproc));
+            } catch (IOException e) {
+                lastError = "No se pudo retomar: " + e.getMessage();
+                return false;
+            }
+            if (estadoPrevio != null) System.out.println("Retomando desde " + checkpoint.archivo());
+            boolean ok = simularEImprimir(procesos, marcosTotales, politica);
+            checkpoint.terminar(ok);
+            return ok;
+        } finally {
+            for (FuentePaginas f : fuentes) f.close();
+            estadoPrevio = null;
+            if (checkpoint != null) checkpoint.close();
+        }
+    }
+
+    // Lo que tiene que coincidir para retomar un checkpoint
+    private String firma(String politica, int marcosTotales, Path inDir, int nproc) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append(ReplacementPolicy.normalizar(politica)).append(' ').append(asignacion)
+          .append(" marcos=").append(marcosTotales).append(" tlb=").append(entradasTLB).append('/').append(viasTLB);
         for (int pid = 0; pid < nproc; pid++) {
-            Path procFile = inDir.resolve("proc" + pid + ".txt");
-            List<Long> pages = loadPages(procFile);
-            if (pages == null) return false;
-            processPages.add(pages);
+            Path f = archivoProceso(inDir, pid);
+            sb.append(' ').append(f.getFileName()).append('=').append(Files.size(f));
         }
+        return sb.toString();
+    }
+
+    // Genera y simula a la vez, sin pasar por proc<i>.txt: cada proceso tiene un
+    // hilo generador (el AccessPattern elegido) que alimenta su Proceso por una
+    // TuberiaPaginas. Un hilo por proceso y no un pool: el round-robin necesita
+    // que todos avancen, o el productor de uno esperaria al de otro.
+    // outDir != null escribe ademas las trazas (texto o binario) como Opcion1.
+    // OPT necesita la traza completa antes de empezar: se vacia la tuberia en memoria.
+    public boolean runTuberia(int tp, int nproc, List<int[]> sizes, int elemSize,
+                              int marcosTotales, String politica, Path outDir, boolean binario) {
+        lastError = errorGlobal(politica, nproc, marcosTotales);
+        if (lastError != null) return false;
+        long inicio = System.nanoTime();
+        int marcosPerProcess = marcosTotales / nproc;
+        List<TuberiaPaginas> tuberias = new ArrayList<>();
+        try {
+            List<Proceso> procesos = new ArrayList<>();
+            long totalRefs = 0;
+            for (int pid = 0; pid < nproc; pid++) {
+                int nf = sizes.get(pid)[0], nc = sizes.get(pid)[1];
+                AccessPattern kernel;
+                try {
+                    kernel = AccessPattern.crear(patron, tp, nf, nc, elemSize);
+                } catch (IllegalArgumentException e) {
+                    lastError = e.getMessage();
+                    return false;
+                }
+                long nr = kernel.referencias();
+                totalRefs += nr;
+                SalidaTraza copia = null;
+                if (outDir != null) {
+                    Path outFile = Opcion1.archivoSalida(outDir, pid, binario);
+                    try {
+                        copia = Opcion1.abrirSalida(outFile, tp, nf, nc, elemSize, kernel, binario);
+                    } catch (IOException e) {
+                        lastError = "No se pudo escribir " + outFile + ": " + e.getMessage();
+                        return false;
+                    }
+                }
+                TuberiaPaginas t = new TuberiaPaginas("proc" + pid, nr);
+                tuberias.add(t);
+                t.iniciar(kernel::generar, copia);
+
+                FuentePaginas fuente = t;
+                ReplacementPolicy pol;
+                if (ReplacementPolicy.necesitaTraza(politica)) {
+                    long[] pages;
+                    try {
+                        pages = vaciar(t, nr);
+                    } catch (IllegalStateException e) {
+                        lastError = e.getMessage();
+                        return false;
+                    }
+                    fuente = FuentePaginas.de(pages);
+                    pol = ReplacementPolicy.crear(politica, pages);
+                } else {
+                    pol = ReplacementPolicy.crear(politica, null);
+                }
+                Proceso proceso = new Proceso(pid, fuente, marcosPerProcess, pol);
+                proceso.paginasVirtuales = (3L * nf * nc * elemSize + tp - 1) / tp;
+                procesos.add(proceso);
+            }
 
-        // Crear procesos
+            if (!simularEImprimir(procesos, marcosTotales, politica)) return false;
+            for (TuberiaPaginas t : tuberias) {
+                String error = t.terminar();
+                if (error != null) {
+                    lastError = error;
+                    return false;
+                }
+            }
+            long nanos = System.nanoTime() - inicio;
+            System.out.printf(Locale.ROOT, "[Tuberia] %d referencias generadas y simuladas en %.1f ms (%.2f Mref/s)%n",
+                    totalRefs, nanos / 1e6, totalRefs / (Math.max(nanos, 1) / 1e9) / 1e6);
+        } finally {
+            for (TuberiaPaginas t : tuberias) t.close();
+        }
+        return true;
+    }
+
+    // Fallos de un proceso solo, con 'marcos' fijos y sin reasignacion. Lo usa Barrido.
+    static long simularAislado(long[] traza, int marcos, String politica) {
+        Proceso p = new Proceso(0, FuentePaginas.de(traza), marcos, ReplacementPolicy.crear(politica, traza));
+        while (p.tienePaginasPendientes()) p.procesarSiguientePagina();
+        return p.fallos;
+    }
+
+    private static long[] vaciar(FuentePaginas fuente, long nr) {
+        BufferPaginas pages = new BufferPaginas(nr);
+        while (fuente.hayMas()) {
+            pages.agregar(fuente.actual());
+            fuente.avanzar();
+        }
+        return pages.toArray();
+    }
+
+    private boolean simularEImprimir(List<Proceso> procesos, int marcosTotales, String politica) {
+        System.out.println("Procesos: " + procesos.size() + ", Marcos: " + marcosTotales
+                + ", Politica: " + ReplacementPolicy.normalizar(politica)
+                + (asignacion.equals("fallos") ? "" : ", Asignacion: " + asignacion));
+        if (esGlobal() && paginasCompartidas > 0) System.out.println("Paginas compartidas: 0-" + (paginasCompartidas - 1));
+        if (entradasTLB > 0) System.out.println("TLB: " + entradasTLB + " entradas, " + viasTLB + " vias (LRU)");
+        if (latencias != null) System.out.println("Latencias: " + latencias);
+        prepararTLB(procesos);
+
+        try {
+            if (esGlobal()) simularGlobal(procesos, marcosTotales);
+            else if (porEpocas(procesos)) simularParalelo(procesos, marcosTotales);
+            else simular(procesos, marcosTotales);
+        } catch (IllegalStateException e) {
+            // Error de formato en una traza mapeada o del generador de una tuberia
+            lastError = e.getMessage();
+            return false;
+        }
+        resultados = new ArrayList<>(procesos.size());
+        for (Proceso p : procesos) {
+            long tlbHits = p.tlb == null ? -1 : p.tlb.hits();
+            double amat = latencias == null ? Double.NaN : latencias.amat(p.referencias, p.fallos, p.swapAccesos, tlbHits);
+            resultados.add(new Resultado(p.pid, p.referencias, p.fallos, p.swapAccesos, tlbHits, amat));
+        }
+        imprimirResultados(procesos);
+        return true;
+    }
+
+    // Resultados por proceso de la ultima simulacion (los mismos que se imprimen)
+    List<Resultado> getResultados() { return resultados; }
+
+    static final class Resultado {
+        final int pid;
+        final long referencias, fallos, swap;
+        final long tlbHits; // -1 sin TLB
+        final double amat;  // ns; NaN sin modelo de latencias
+
+        Resultado(int pid, long referencias, long fallos, long swap, long tlbHits, double amat) {
+            this.pid = pid;
+            this.referencias = referencias;
+            this.fallos = fallos;
+            this.swap = swap;
+            this.tlbHits = tlbHits;
+            this.amat = amat;
+        }
+
+        long hits() { return referencias - fallos; }
+    }
+
+    // Simula trazas ya cargadas sin imprimir resultados y devuelve el total de
+    // referencias procesadas (incluye los reintentos tras fallo). Lo usa Benchmark.
+    long simularTrazas(long[][] trazas, int marcosTotales, String politica) {
+        String error = errorGlobal(politica, trazas.length, marcosTotales);
+        if (error != null) throw new IllegalArgumentException(error);
+        int marcosPerProcess = marcosTotales / trazas.length;
         List<Proceso> procesos = new ArrayList<>();
-        for (int i = 0; i < nproc; i++) {
-            procesos.add(new Proceso(i, processPages.get(i), marcosPerProcess));
+        for (int pid = 0; pid < trazas.length; pid++) {
+            Proceso p = new Proceso(pid, FuentePaginas.de(trazas[pid]), marcosPerProcess,
+                    ReplacementPolicy.crear(politica, trazas[pid]));
+            for (long pagina : trazas[pid]) p.paginasVirtuales = Math.max(p.paginasVirtuales, pagina + 1);
+            procesos.add(p);
         }
-        
-        System.out.println("Procesos: " + nproc + ", Marcos: " + marcosTotales);
-        
-        simular(procesos);
-        
+        prepararTLB(procesos);
+        if (esGlobal()) simularGlobal(procesos, marcosTotales);
+        else if (porEpocas(procesos)) simularParalelo(procesos, marcosTotales);
+        else simular(procesos, marcosTotales);
+        long total = 0;
+        for (Proceso p : procesos) total += p.referencias;
+        return total;
+    }
+
+    private boolean porEpocas(List<Proceso> procesos) {
+        if (hilos > 1 && procesos.size() > 1) return true;
         for (Proceso p : procesos) {
-        int hits = p.referencias - p.fallos;
+            if (p.paginas.porRachas()) return true;
+        }
+        return false;
+    }
+
+    private void prepararTLB(List<Proceso> procesos) {
+        if (entradasTLB <= 0) return;
+        for (Proceso p : procesos) {
+            p.tlb = new TLB(entradasTLB, viasTLB);
+            p.marcos.usarTLB(p.tlb);
+        }
+    }
+
+    private void imprimirResultados(List<Proceso> procesos) {
+        for (int k = 0; k < procesos.size(); k++) {
+        Proceso p = procesos.get(k);
+        long hits = p.referencias - p.fallos;
         double tasaFallos = p.referencias > 0 ? (double) p.fallos / p.referencias : 0.0;
         double tasaExito = p.referencias > 0 ? (double) hits / p.referencias : 0.0;
         
@@ -44,13 +364,18 @@ public class Opcion2 {
         System.out.println("- SWAP: " + p.swapAccesos);
         System.out.printf("- Tasa fallas: %.4f%n", tasaFallos);
         System.out.printf("- Tasa éxito: %.4f%n", tasaExito);
+        Resultado r = resultados.get(k);
+        if (r.tlbHits >= 0) {
+            System.out.printf("- TLB hits: %d (tasa %.4f)%n", r.tlbHits,
+                    p.referencias > 0 ? (double) r.tlbHits / p.referencias : 0.0);
+        }
+        if (latencias != null) System.out.printf("- AMAT: %.2f ns%n", r.amat);
     }
-        
-        return true;
     }
     
-    private void simular(List<Proceso> procesos) {
-        Queue<Proceso> cola = new LinkedList<>();
+    private void simular(List<Proceso> procesos, int marcosTotales) {
+        // ArrayDeque y no LinkedList: reencolar en cada paso no asigna memoria
+        Queue<Proceso> cola = new ArrayDeque<>(procesos.size());
         
         // Inicializar cola con procesos que tienen paginas pendientes
         for (Proceso p : procesos) {
@@ -60,191 +385,734 @@ public class Opcion2 {
         }
         
         long tiempoGlobal = 0;
+        Muestreo muestreo = metricas == null ? null : new Muestreo(metricas, procesos);
+        long proximaMuestra = muestreo == null ? Long.MAX_VALUE : intervaloMetricas;
+        Reparto reparto = new Reparto(procesos, marcosTotales);
+        long proximoReparto = reparto.siguiente(0);
+        long proximoCheckpoint = Long.MAX_VALUE;
+        if (estadoPrevio != null) {
+            Punto punto = restaurar(procesos, reparto);
+            tiempoGlobal = punto.tiempo;
+            proximoReparto = punto.proximoReparto;
+            cola.clear();
+            for (int pid : punto.cola) cola.add(procesos.get(pid));
+            if (muestreo != null) proximaMuestra = tiempoGlobal + intervaloMetricas;
+        }
+        if (checkpoint != null && checkpoint.abierto()) proximoCheckpoint = checkpoint.siguiente(tiempoGlobal);
         
         while (!cola.isEmpty()) {
             Proceso proceso = cola.poll();
             
             // Procesar una pagina del proceso
-            boolean exitoso = proceso.procesarSiguientePagina(tiempoGlobal);
+            boolean exitoso = proceso.procesarSiguientePagina();
             tiempoGlobal++;
+            if (tiempoGlobal >= proximaMuestra) {
+                muestreo.tomar(tiempoGlobal, cola.size(), false);
+                proximaMuestra += intervaloMetricas;
+            }
             
             if (exitoso) {
                 if (proceso.tienePaginasPendientes()) {
                     cola.add(proceso);
                 } else {
-                    reasignarMarcos(proceso, procesos);
+                    reparto.reasignarMarcos(proceso);
                 }
             } else {
                 // Si hay Fallo de pagina el proceso pierde turno y vuelve a cola
+                reparto.alFallar(proceso);
                 cola.add(proceso);
             }
+
+            // Rebalanceo periodico al cerrar una ronda (el siguiente tiene pid menor),
+            // igual que al final de una epoca de simularParalelo
+            if (tiempoGlobal >= proximoReparto && (cola.isEmpty() || cola.peek().pid <= proceso.pid)) {
+                proximoReparto = reparto.rebalancear(tiempoGlobal);
+            }
+            // Checkpoint tambien entre rondas: la cola queda en orden de pid
+            if (tiempoGlobal >= proximoCheckpoint && (cola.isEmpty() || cola.peek().pid <= proceso.pid)) {
+                tomarCheckpoint(tiempoGlobal, proximoReparto, cola, procesos, reparto);
+                proximoCheckpoint = checkpoint.siguiente(tiempoGlobal);
+            }
         }
+        if (muestreo != null) muestreo.tomar(tiempoGlobal, 0, true);
     }
     
-    private void reasignarMarcos(Proceso terminado, List<Proceso> procesos) {
-        if (terminado.marcos.isEmpty()) return;
-        
-        // Encontrar proceso con mas fallos
-        Proceso mayorFallos = null;
-        int maxFallos = -1;
-        
+    // La cola de simular es un round-robin puro: cada proceso vuelve al final
+    // tras cada paso (hit o fallo), asi que el orden siempre es por pid y en cada
+    // ronda avanzan todos una vez. Los procesos solo interactuan cuando uno
+    // termina (reasignarMarcos), y ninguno puede terminar antes de tantos pasos
+    // como referencias le quedan. Cada epoca toma L = minimo de esas cotas, corre
+    // L-1 rondas de todos los procesos en paralelo sin sincronizar, y la ronda L
+    // en secuencia por pid, donde se resuelven las terminaciones igual que en simular.
+    // Con un hilo las rondas libres corren en el mismo hilo: sirven para contar
+    // de una vez las rachas de hits de una traza RLE.
+    private void simularParalelo(List<Proceso> procesos, int marcosTotales) {
+        List<Proceso> activos = new ArrayList<>();
         for (Proceso p : procesos) {
-            if (p != terminado && p.tienePaginasPendientes() && p.fallos > maxFallos) {
-                maxFallos = p.fallos;
-                mayorFallos = p;
+            if (p.tienePaginasPendientes()) activos.add(p);
+        }
+
+        ForkJoinPool pool = hilos > 1 && procesos.size() > 1 ? new ForkJoinPool(Math.min(hilos, procesos.size())) : null;
+        // Aqui las muestras se toman al cerrar la epoca, cuando los hilos estan quietos
+        Muestreo muestreo = metricas == null ? null : new Muestreo(metricas, procesos);
+        long proximaMuestra = muestreo == null ? Long.MAX_VALUE : intervaloMetricas;
+        Reparto reparto = new Reparto(procesos, marcosTotales);
+        long proximoReparto = reparto.siguiente(0);
+        long proximoCheckpoint = Long.MAX_VALUE;
+        try {
+            long tiempoGlobal = 0;
+            if (estadoPrevio != null) {
+                Punto punto = restaurar(procesos, reparto);
+                tiempoGlobal = punto.tiempo;
+                proximoReparto = punto.proximoReparto;
+                activos.clear();
+                for (int pid : punto.cola) activos.add(procesos.get(pid));
+                if (muestreo != null) proximaMuestra = tiempoGlobal + intervaloMetricas;
+            }
+            if (checkpoint != null && checkpoint.abierto()) proximoCheckpoint = checkpoint.siguiente(tiempoGlobal);
+            while (!activos.isEmpty()) {
+                long epoca = PASOS_EPOCA;
+                for (Proceso p : activos) epoca = Math.min(epoca, p.paginas.restantesHasta(epoca));
+                // La epoca termina en la primera ronda completa desde proximoReparto
+                if (proximoReparto != Long.MAX_VALUE) {
+                    long faltan = Math.max(0, proximoReparto - tiempoGlobal);
+                    epoca = Math.min(epoca, Math.max(1, (faltan + activos.size() - 1) / activos.size()));
+                }
+
+                long rondasLibres = epoca - 1;
+                if (rondasLibres > 0) {
+                    if (pool == null) {
+                        for (Proceso p : activos) p.procesarRondas(rondasLibres);
+                    } else {
+                        List<Callable<Void>> tareas = new ArrayList<>(activos.size());
+                        for (Proceso p : activos) {
+                            tareas.add(() -> {
+                                p.procesarRondas(rondasLibres);
+                                return null;
+                            });
+                        }
+                        esperar(pool.invokeAll(tareas));
+                    }
+                    tiempoGlobal += rondasLibres * activos.size();
+                    for (Proceso p : activos) reparto.alFallar(p);
+                }
+
+                // Ronda de sincronizacion
+                Iterator<Proceso> it = activos.iterator();
+                while (it.hasNext()) {
+                    Proceso proceso = it.next();
+                    boolean exitoso = proceso.procesarSiguientePagina();
+                    tiempoGlobal++;
+                    if (exitoso && !proceso.tienePaginasPendientes()) {
+                        reparto.reasignarMarcos(proceso);
+                        it.remove();
+                    } else if (!exitoso) {
+                        reparto.alFallar(proceso);
+                    }
+                }
+                if (tiempoGlobal >= proximoReparto) proximoReparto = reparto.rebalancear(tiempoGlobal);
+                if (tiempoGlobal >= proximaMuestra) {
+                    muestreo.tomar(tiempoGlobal, activos.size(), false);
+                    proximaMuestra = tiempoGlobal + intervaloMetricas;
+                }
+                if (tiempoGlobal >= proximoCheckpoint) {
+                    tomarCheckpoint(tiempoGlobal, proximoReparto, activos, procesos, reparto);
+                    proximoCheckpoint = checkpoint.siguiente(tiempoGlobal);
+                }
             }
+            if (muestreo != null) muestreo.tomar(tiempoGlobal, 0, true);
+        } finally {
+            if (pool != null) pool.shutdown();
         }
-        
-        if (mayorFallos != null) {
-            mayorFallos.marcos.addAll(terminado.marcos);
-            System.out.println("Marcos de proceso " + terminado.pid + 
-                             " reasignados a proceso " + mayorFallos.pid);
+    }
+
+    // Reemplazo global: ningun reparto, todos los procesos contra un solo
+    // MarcosGlobales. Con un hilo es el round-robin de simular (determinista).
+    // Con mas, el hilo k lleva por turnos los procesos con pid % hilos == k y
+    // todos se disputan los marcos a la vez: los fallos dependen del
+    // entrelazado y cambian de una corrida a otra. Se informa el rendimiento
+    // para compararlo con el reemplazo local (ver Benchmark, ASIGNACION=).
+    private void simularGlobal(List<Proceso> procesos, int marcosTotales) {
+        long[] np = new long[procesos.size()];
+        for (Proceso p : procesos) {
+            if (p.paginasVirtuales <= 0) throw new IllegalStateException("Sin NP en la cabecera del proceso " + p.pid);
+            np[p.pid] = p.paginasVirtuales;
+        }
+        MarcosGlobales global = new MarcosGlobales(marcosTotales, np, paginasCompartidas);
+        int n = Math.min(hilos, procesos.size());
+        long inicio = System.nanoTime();
+        if (n <= 1) {
+            correrGlobal(procesos, global);
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(n);
+            try {
+                List<Callable<Void>> tareas = new ArrayList<>(n);
+                for (int k = 0; k < n; k++) {
+                    List<Proceso> propios = new ArrayList<>();
+                    for (Proceso p : procesos) if (p.pid % n == k) propios.add(p);
+                    tareas.add(() -> {
+                        correrGlobal(propios, global);
+                        return null;
+                    });
+                }
+                esperar(pool.invokeAll(tareas));
+            } finally {
+                pool.shutdown();
+            }
+        }
+        long nanos = System.nanoTime() - inicio;
+        long refs = 0;
+        for (Proceso p : procesos) refs += p.referencias;
+        System.out.printf(Locale.ROOT, "[Global] %d referencias en %.1f ms (%.2f Mref/s), %d hilo(s) sobre %d marcos%n",
+                refs, nanos / 1e6, refs / (Math.max(nanos, 1) / 1e9) / 1e6, Math.max(1, n), global.marcos());
+    }
+
+    // Round-robin de los procesos de un hilo; el que termina suelta sus marcos
+    private static void correrGlobal(List<Proceso> propios, MarcosGlobales global) {
+        Queue<Proceso> cola = new ArrayDeque<>(propios.size());
+        for (Proceso p : propios) {
+            if (p.tienePaginasPendientes()) cola.add(p);
+        }
+        while (!cola.isEmpty()) {
+            Proceso proceso = cola.poll();
+            if (!proceso.procesarGlobal(global) || proceso.tienePaginasPendientes()) {
+                cola.add(proceso);
+            } else {
+                global.liberar(proceso.pid);
+            }
+        }
+    }
+
+    // Estado en un punto entre rondas: reloj, reparto, cola y cada proceso
+    private void tomarCheckpoint(long tiempo, long proximoReparto, Collection<Proceso> cola,
+                                 List<Proceso> procesos, Reparto reparto) {
+        checkpoint.tomar(out -> {
+            out.writeLong(tiempo);
+            out.writeLong(proximoReparto);
+            out.writeInt(cola.size());
+            for (Proceso p : cola) out.writeInt(p.pid);
+            reparto.guardar(out);
+            for (Proceso p : procesos) p.guardar(out);
+        });
+    }
+
+    // Lee lo que escribio tomarCheckpoint sobre procesos y reparto recien creados
+    private Punto restaurar(List<Proceso> procesos, Reparto reparto) {
+        DataInputStream in = estadoPrevio;
+        estadoPrevio = null;
+        try {
+            Punto punto = new Punto();
+            punto.tiempo = in.readLong();
+            punto.proximoReparto = in.readLong();
+            punto.cola = new int[in.readInt()];
+            for (int k = 0; k < punto.cola.length; k++) punto.cola[k] = in.readInt();
+            reparto.cargar(in);
+            for (Proceso p : procesos) p.cargar(in);
+            for (int pid : punto.cola) {
+                if (!procesos.get(pid).tienePaginasPendientes()) throw new IOException("el proceso " + pid + " de la cola ya termino");
+            }
+            return punto;
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("Checkpoint invalido: " + e.getMessage(), e);
+        }
+    }
+
+    private static final class Punto {
+        long tiempo, proximoReparto;
+        int[] cola;
+    }
+
+    private static void esperar(List<Future<Void>> tareas) {
+        for (Future<Void> f : tareas) {
+            try {
+                f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Simulacion interrumpida", e);
+            } catch (ExecutionException e) {
+                Throwable causa = e.getCause();
+                if (causa instanceof RuntimeException) throw (RuntimeException) causa;
+                throw new IllegalStateException(causa.getMessage(), causa);
+            }
+        }
+    }
+
+    // Aplica el FrameAllocator de la corrida (ver setAsignacion) a los procesos
+    private final class Reparto implements FrameAllocator.Vista {
+        private final FrameAllocator asignador;
+        private final List<Proceso> procesos; // indice = pid
+        private final int marcosTotales;
+        private final int[] limite;
+
+        Reparto(List<Proceso> procesos, int marcosTotales) {
+            this.asignador = FrameAllocator.crear(asignacion);
+            this.procesos = procesos;
+            this.marcosTotales = marcosTotales;
+            long[] np = new long[procesos.size()];
+            for (Proceso p : procesos) {
+                np[p.pid] = p.paginasVirtuales;
+                if (asignador.necesitaPaginasRecientes()) p.paginasRecientes = new MapaPaginas(Math.max(16, p.maxMarcos));
+            }
+            limite = asignador.inicial(this, marcosTotales, np);
+            comprobarSuma();
+            for (Proceso p : procesos) aplicar(p, limite[p.pid]);
+        }
+
+        public int procesos() { return procesos.size(); }
+        public boolean activo(int pid) { return procesos.get(pid).tienePaginasPendientes(); }
+        public long referencias(int pid) { return procesos.get(pid).referencias; }
+        public long fallos(int pid) { return procesos.get(pid).fallos; }
+
+        public long paginasRecientes(int pid) {
+            MapaPaginas m = procesos.get(pid).paginasRecientes;
+            return m == null ? 0 : m.tamano();
+        }
+
+        void alFallar(Proceso p) { asignador.alFallar(p.pid, p.fallos); }
+
+        void guardar(DataOutput out) throws IOException {
+            for (int l : limite) out.writeInt(l);
+            asignador.guardar(out);
+        }
+
+        void cargar(DataInput in) throws IOException {
+            for (int k = 0; k < limite.length; k++) limite[k] = in.readInt();
+            asignador.cargar(in);
+        }
+
+        // Paso global del proximo rebalanceo periodico (MAX_VALUE = ninguno)
+        long siguiente(long ahora) {
+            int activos = 0;
+            for (Proceso p : procesos) if (p.tienePaginasPendientes()) activos++;
+            long intervalo = asignador.intervalo(activos);
+            return intervalo > 0 ? ahora + intervalo : Long.MAX_VALUE;
+        }
+
+        long rebalancear(long ahora) {
+            aplicarReparto();
+            return siguiente(ahora);
+        }
+
+        // Termino un proceso: sus marcos pasan a un heredero con las paginas que
+        // tenian (reparto original) o vuelven al total para rebalancear
+        void reasignarMarcos(Proceso terminado) {
+            int receptor = asignador.alTerminar(terminado.pid, this);
+            if (receptor == FrameAllocator.DEVOLVER) {
+                if (metricas != null) metricas.reasignacion(terminado.pid, -1, terminado.marcos.tamano());
+                terminado.marcos.clear();
+                terminado.maxMarcos = 0;
+                System.out.println("Marcos de proceso " + terminado.pid + " devueltos al reparto");
+                aplicarReparto();
+                return;
+            }
+            if (terminado.marcos.isEmpty()) return;
+
+            if (receptor != FrameAllocator.NADIE) {
+                Proceso mayorFallos = procesos.get(receptor);
+                if (metricas != null) metricas.reasignacion(terminado.pid, mayorFallos.pid, terminado.marcos.tamano());
+                terminado.marcos.transferirA(mayorFallos.marcos);
+                mayorFallos.marcos.limite(mayorFallos.maxMarcos);
+                System.out.println("Marcos de proceso " + terminado.pid + 
+                                 " reasignados a proceso " + mayorFallos.pid);
+            }
+            terminado.marcos.clear();
+        }
+
+        private void aplicarReparto() {
+            asignador.rebalancear(this, marcosTotales, limite);
+            comprobarSuma();
+            for (Proceso p : procesos) {
+                if (!p.tienePaginasPendientes()) continue;
+                aplicar(p, limite[p.pid]);
+                if (p.paginasRecientes != null) p.paginasRecientes.clear();
+            }
+        }
+
+        // Un asignador que reparte mas marcos de los que hay simularia una
+        // memoria mas grande que la configurada
+        private void comprobarSuma() {
+            long suma = 0;
+            for (Proceso p : procesos) if (p.tienePaginasPendientes()) suma += Math.max(1, limite[p.pid]);
+            if (suma > marcosTotales) {
+                throw new IllegalStateException("La asignacion " + asignacion + " reparte " + suma
+                        + " marcos y solo hay " + marcosTotales);
+            }
+        }
+
+        // Si el limite baja, el proceso cede marcos ya (cada pagina que sale es
+        // un acceso a SWAP); si sube, los ocupa en sus siguientes fallos
+        private void aplicar(Proceso p, int marcos) {
+            int m = Math.max(1, marcos);
+            while (p.marcos.tamano() > m) {
+                p.marcos.liberarMarco(p.indicePagina);
+                p.swapAccesos++;
+            }
+            p.maxMarcos = m;
+            p.marcos.limite(m);
         }
-        terminado.marcos.clear();
     }
     
     // Clase para manejar cada proceso
     private static class Proceso {
         int pid;
-        List<Long> paginas;
-        int indicePagina = 0;
+        FuentePaginas paginas;
+        long indicePagina = 0;
         
-        // Marcos asignados: cada marco contiene pagina + contador aging
-        List<Marco> marcos = new ArrayList<>();
+        // Marcos asignados: pagina por marco; el estado de reemplazo va en la politica
+        TablaMarcos marcos;
         int maxMarcos;
         
         // Estadisticas
-        int referencias = 0;
-        int fallos = 0;
-        int swapAccesos = 0;
+        long referencias = 0;
+        long fallos = 0;
+        long swapAccesos = 0;
+
+        TLB tlb; // null sin TLB
+
+        // Paginas referenciadas desde la ultima muestra; null sin metricas
+        MapaPaginas conjuntoTrabajo;
+        // Para el FrameAllocator: paginas virtuales (NP) y paginas referenciadas
+        // desde el ultimo rebalanceo (null si el asignador no las usa)
+        long paginasVirtuales;
+        MapaPaginas paginasRecientes;
+        private int[] marcosGrupo = new int[8];
         
-        Proceso(int pid, List<Long> paginas, int maxMarcos) {
+        Proceso(int pid, FuentePaginas paginas, int maxMarcos, ReplacementPolicy politica) {
             this.pid = pid;
             this.paginas = paginas;
             this.maxMarcos = maxMarcos;
+            this.marcos = new TablaMarcos(maxMarcos, politica);
         }
         
         boolean tienePaginasPendientes() {
-            return indicePagina < paginas.size();
+            return paginas.hayMas();
+        }
+
+        void guardar(DataOutput out) throws IOException {
+            out.writeLong(indicePagina);
+            out.writeLong(referencias);
+            out.writeLong(fallos);
+            out.writeLong(swapAccesos);
+            out.writeInt(maxMarcos);
+            marcos.guardar(out);
+            out.writeBoolean(paginasRecientes != null);
+            if (paginasRecientes != null) paginasRecientes.guardar(out);
+            out.writeBoolean(tlb != null);
+            if (tlb != null) tlb.guardar(out);
+        }
+
+        // La fuente se adelanta indicePagina referencias (los grupos RLE de a uno)
+        void cargar(DataInput in) throws IOException {
+            indicePagina = in.readLong();
+            referencias = in.readLong();
+            fallos = in.readLong();
+            swapAccesos = in.readLong();
+            maxMarcos = in.readInt();
+            marcos.cargar(in);
+            if (in.readBoolean() != (paginasRecientes != null)) throw new IOException("asignacion distinta");
+            if (paginasRecientes != null) paginasRecientes.cargar(in);
+            if (in.readBoolean() != (tlb != null)) throw new IOException("TLB distinta");
+            if (tlb != null) tlb.cargar(in);
+            for (long faltan = indicePagina; faltan > 0; ) {
+                if (!paginas.hayMas()) throw new IOException("la traza de proceso " + pid + " es mas corta que el checkpoint");
+                int g = paginas.grupo();
+                long k = g == 0 ? 0 : Math.min(paginas.repeticiones(), faltan / g);
+                if (k > 0) {
+                    paginas.saltarRepeticiones(k);
+                    faltan -= k * g;
+                } else {
+                    paginas.avanzar();
+                    faltan--;
+                }
+            }
         }
         
-        boolean procesarSiguientePagina(long tiempo) {
+        boolean procesarSiguientePagina() {
             if (!tienePaginasPendientes()) return true;
             
-            long pagina = paginas.get(indicePagina);
+            long pagina = paginas.actual();
             referencias++;
             
-            // Buscar pagina en marcos actuales
-            Marco marcoHit = null;
-            for (Marco m : marcos) {
-                if (m.pagina == pagina) {
-                    marcoHit = m;
-                    break;
-                }
-            }
+            // Buscar pagina en marcos actuales (via la TLB si hay)
+            int marcoHit = tlb == null ? marcos.buscar(pagina) : tlb.traducir(pagina, marcos);
             
-            if (marcoHit != null) {
+            if (marcoHit >= 0) {
                 // HIT
-                marcoHit.contadorAging = (byte) 0x80; // Bit R = 1
-                indicePagina++; // Avanzar a siguiente pagina
+                marcos.acceder(marcoHit, indicePagina);
+                if (conjuntoTrabajo != null) conjuntoTrabajo.put(pagina, 0);
+                if (paginasRecientes != null) paginasRecientes.put(pagina, 0);
+                paginas.avanzar(); // Avanzar a siguiente pagina
+                indicePagina++;
                 return true;
                 
             } else {
                 // MISS
                 fallos++;
                 
-                if (marcos.size() < maxMarcos) {
+                if (marcos.tamano() < maxMarcos) {
                     // Hay marco libre
-                    marcos.add(new Marco(pagina, (byte) 0x80));
+                    marcos.agregar(pagina, indicePagina);
                     swapAccesos++; // Un acceso para cargar
                 } else {
-                    // Reemplazo LRU usando aging
-                    Marco lru = encontrarLRU();
-                    lru.pagina = pagina;
-                    lru.contadorAging = (byte) 0x80;
+                    // Reemplazo segun la politica (aging por defecto)
+                    marcos.reemplazar(pagina, indicePagina);
                     swapAccesos += 2; // Sacar pagina vieja + cargar nueva
                 }
                 
-                // Envejece todo contador despues de cada referencia
-                envejecerContadores();
-                
                 // Pierde turno por fallo de pagina
                 return false;
             }
         }
-        
-        private Marco encontrarLRU() {
-            Marco lru = marcos.get(0);
-            for (Marco m : marcos) {
-                if ((m.contadorAging & 0xFF) < (lru.contadorAging & 0xFF)) {
-                    lru = m;
+
+        // Un paso contra los marcos del reemplazo global: igual que
+        // procesarSiguientePagina, sin tabla propia ni politica por proceso
+        boolean procesarGlobal(MarcosGlobales global) {
+            if (!tienePaginasPendientes()) return true;
+            long pagina = paginas.actual();
+            referencias++;
+            if (global.buscar(pid, pagina) >= 0) {
+                paginas.avanzar();
+                indicePagina++;
+                return true;
+            }
+            fallos++;
+            swapAccesos += global.cargar(pid, pagina);
+            return false;
+        }
+
+        // 'rondas' pasos seguidos sin que otro proceso toque la memoria (rondas
+        // libres de simularParalelo)
+        void procesarRondas(long rondas) {
+            long hechas = 0;
+            while (hechas < rondas && tienePaginasPendientes()) {
+                long saltadas = tlb == null ? saltarRacha(rondas - hechas) : 0;
+                if (saltadas > 0) {
+                    hechas += saltadas;
+                } else {
+                    procesarSiguientePagina();
+                    hechas++;
                 }
             }
-            return lru;
         }
-        
-        private void envejecerContadores() {
-            for (Marco m : marcos) {
-                // Desplazar a la derecha 1 bit
-                m.contadorAging = (byte) ((m.contadorAging & 0xFF) >> 1);
+
+        // Si la fuente abre una repeticion de un grupo (TrazaRLE) y todas sus
+        // paginas estan cargadas, esa y las siguientes repeticiones son hits que
+        // no cambian el conjunto residente: se cuentan de una vez, hasta 'max'
+        // referencias. La politica recibe los accesos de la primera y la ultima
+        // repeticion: repetir la misma secuencia de hits no cambia mas a LRU,
+        // Aging, Clock ni FIFO, y ARC no promueve el primer hit tras una carga.
+        // Con TLB no se usa: cada referencia cambia sus contadores.
+        private long saltarRacha(long max) {
+            int g = paginas.grupo();
+            if (g == 0) return 0;
+            long k = Math.min(paginas.repeticiones(), max / g);
+            if (k == 0) return 0;
+            if (marcosGrupo.length < g) marcosGrupo = new int[Math.max(g, marcosGrupo.length * 2)];
+            for (int j = 0; j < g; j++) {
+                int m = marcos.buscar(paginas.paginaDelGrupo(j));
+                if (m < 0) return 0;
+                marcosGrupo[j] = m;
             }
+            for (int j = 0; j < g; j++) marcos.acceder(marcosGrupo[j], indicePagina + j);
+            if (k > 1) {
+                long ultima = indicePagina + (k - 1) * g;
+                for (int j = 0; j < g; j++) marcos.acceder(marcosGrupo[j], ultima + j);
+            }
+            for (int j = 0; j < g; j++) {
+                long pagina = paginas.paginaDelGrupo(j);
+                if (conjuntoTrabajo != null) conjuntoTrabajo.put(pagina, 0);
+                if (paginasRecientes != null) paginasRecientes.put(pagina, 0);
+            }
+            long refs = k * g;
+            referencias += refs;
+            indicePagina += refs;
+            paginas.saltarRepeticiones(k);
+            return refs;
         }
     }
-    
-    // Marco: pagina + contador aging de 8 bits
-    private static class Marco {
-        long pagina;
-        byte contadorAging;
-        
-        Marco(long pagina, byte contador) {
-            this.pagina = pagina;
-            this.contadorAging = contador;
+
+    // Llena y entrega las muestras de una corrida (ver setMetricas)
+    private static final class Muestreo {
+        private final MetricasSimulacion destino;
+        private final List<Proceso> procesos;
+        private final MetricasSimulacion.Muestra muestra;
+        private final long inicio = System.nanoTime();
+        private long nanosAnterior = 0, pasosAnterior = 0, fallosAnterior = 0;
+
+        Muestreo(MetricasSimulacion destino, List<Proceso> procesos) {
+            this.destino = destino;
+            this.procesos = procesos;
+            this.muestra = new MetricasSimulacion.Muestra(procesos.size());
+            for (Proceso p : procesos) p.conjuntoTrabajo = new MapaPaginas(Math.max(16, p.maxMarcos));
+        }
+
+        void tomar(long pasos, int enCola, boolean ultima) {
+            MetricasSimulacion.Muestra m = muestra;
+            long nanos = System.nanoTime() - inicio;
+            long fallos = 0;
+            for (int k = 0; k < procesos.size(); k++) {
+                Proceso p = procesos.get(k);
+                m.pid[k] = p.pid;
+                m.conjuntoTrabajo[k] = p.conjuntoTrabajo.tamano();
+                m.marcos[k] = p.marcos.tamano();
+                m.fallos[k] = p.fallos;
+                p.conjuntoTrabajo.clear();
+                fallos += p.fallos;
+            }
+            long ventana = nanos - nanosAnterior;
+            m.nanos = nanos;
+            m.pasos = pasos;
+            m.referenciasPorSegundo = ventana > 0 ? (pasos - pasosAnterior) * 1e9 / ventana : 0.0;
+            m.fallosVentana = fallos - fallosAnterior;
+            m.enCola = enCola;
+            m.ultima = ultima;
+            nanosAnterior = nanos;
+            pasosAnterior = pasos;
+            fallosAnterior = fallos;
+            destino.muestra(m);
         }
     }
 
-    private List<Long> loadPages(Path file) {
+    // proc<i>.txt si existe; si no, la traza binaria proc<i>.bin o la RLE proc<i>.rle
+    static Path archivoProceso(Path dir, int pid) {
+        Path txt = dir.resolve("proc" + pid + ".txt");
+        if (Files.exists(txt)) return txt;
+        Path bin = dir.resolve("proc" + pid + ".bin");
+        if (Files.exists(bin)) return bin;
+        Path rle = TrazaRLE.archivo(dir, pid);
+        return Files.exists(rle) ? rle : txt;
+    }
+
+    // Trazas grandes: cursor mapeado; pequeñas: carga completa en memoria.
+    // Las RLE se leen siempre por registros, sin expandir las rachas.
+    FuentePaginas abrirFuente(Path file) {
         try {
-            List<String> lines = Files.readAllLines(file);
-            
-            // Verifica lineas de metadatos
-            if (lines.size() < 5) {
-                lastError = "Archivo " + file.getFileName() + " no tiene suficientes líneas de metadatos (mínimo 5)";
-                return null;
-            }
+            if (TrazaRLE.esRLE(file)) return TrazaRLE.Fuente.abrir(file);
+            if (Files.size(file) >= UMBRAL_MAPEO) return TrazaMapeada.abrir(file);
+        } catch (IOException e) {
+            lastError = "Error leyendo archivo " + file.getFileName() + ": " + e.getMessage();
+            return null;
+        }
+        long[] pages = loadPages(file);
+        return pages == null ? null : FuentePaginas.de(pages);
+    }
 
-            List<Long> pages = new ArrayList<>();
-            
-            // Las referencias empiezan en linea 5
-            for (int i = 5; i < lines.size(); i++) {
-                String line = lines.get(i).trim();
-                if (line.isEmpty()) continue;
-                
-                String[] parts = line.split(",");
-                if (parts.length < 3) {
-                    lastError = "Formato inválido en archivo " + file.getFileName() + " línea " + (i+1) + ": se esperan al menos 3 campos";
-                    return null;
+    // Carga la traza completa en un long[] (8 bytes por referencia)
+    long[] loadPages(Path file) {
+        try {
+            if (TrazaBinaria.esBinaria(file)) return loadPagesBinario(file);
+            if (TrazaRLE.esRLE(file)) return loadPagesRLE(file);
+
+            try (BufferedReader r = Files.newBufferedReader(file)) {
+                // Verifica lineas de metadatos; NR dimensiona el arreglo y se compara al final
+                String[] cabecera = new String[5];
+                for (int k = 0; k < 5; k++) {
+                    cabecera[k] = r.readLine();
+                    if (cabecera[k] == null) {
+                        lastError = "Archivo " + file.getFileName() + " no tiene suficientes líneas de metadatos (mínimo 5)";
+                        return null;
+                    }
                 }
-                
-                try {
+                BufferPaginas pages = new BufferPaginas(capacidadSegunNR(cabecera[3]));
+
+                // Las referencias empiezan en linea 5
+                String raw;
+                for (int i = 5; (raw = r.readLine()) != null; i++) {
+                    String line = raw.trim();
+                    if (line.isEmpty()) continue;
+
+                    int c1 = line.indexOf(',');
+                    int c2 = c1 < 0 ? -1 : line.indexOf(',', c1 + 1);
+                    if (c2 < 0) {
+                        lastError = "Formato inválido en archivo " + file.getFileName() + " línea " + (i+1) + ": se esperan al menos 3 campos";
+                        return null;
+                    }
+
                     // El numero de pagina calculado usando el segundo campo que contiene la coordenada
-                    String coordStr = parts[1].trim();
-                    long pagina = Long.parseLong(coordStr);
-                    pages.add(pagina);
-                } catch (NumberFormatException e) {
-                    lastError = "Coordenada inválida en archivo " + file.getFileName() + " línea " + (i+1) + ": " + parts[1];
+                    String coordStr = line.substring(c1 + 1, c2);
+                    try {
+                        pages.agregar(Long.parseLong(coordStr.trim()));
+                    } catch (NumberFormatException e) {
+                        lastError = "Coordenada inválida en archivo " + file.getFileName() + " línea " + (i+1) + ": " + coordStr;
+                        return null;
+                    }
+                }
+
+                if (pages.tamano() == 0) {
+                    lastError = "No se encontraron referencias de páginas en " + file.getFileName();
                     return null;
                 }
+                long nr = valorNR(cabecera[3]);
+                if (nr > 0 && pages.tamano() != nr) {
+                    lastError = "NR=" + nr + " pero se leyeron " + pages.tamano() + " referencias en " + file.getFileName() + " (traza truncada?)";
+                    return null;
+                }
+
+                return pages.toArray();
             }
-            
-            if (pages.isEmpty()) {
-                lastError = "No se encontraron referencias de páginas en " + file.getFileName();
-                return null;
-            }
-            
-            return pages;
         } catch (Exception e) {
             lastError = "Error leyendo archivo " + file.getFileName() + ": " + e.getMessage();
             return null;
         }
     }
+
+    private long[] loadPagesBinario(Path file) throws IOException {
+        try (TrazaBinaria.Lector lector = new TrazaBinaria.Lector(file)) {
+            BufferPaginas pages = new BufferPaginas(lector.cabecera().nr);
+            while (lector.siguiente()) {
+                pages.agregar(lector.pagina());
+            }
+            if (pages.tamano() == 0) {
+                lastError = "No se encontraron referencias de páginas en " + file.getFileName();
+                return null;
+            }
+            return pages.toArray();
+        }
+    }
+
+    // OPT y Barrido necesitan la traza expandida
+    private long[] loadPagesRLE(Path file) throws IOException {
+        try (TrazaRLE.Fuente f = TrazaRLE.Fuente.abrir(file)) {
+            BufferPaginas pages = new BufferPaginas(f.cabecera().nr);
+            for (; f.hayMas(); f.avanzar()) pages.agregar(f.actual());
+            return pages.toArray();
+        }
+    }
+
+    // NP de la cabecera (texto, binaria o RLE); 0 si no se puede leer
+    static long paginasVirtuales(Path file) {
+        try {
+            if (TrazaBinaria.esBinaria(file)) {
+                try (TrazaBinaria.Lector l = new TrazaBinaria.Lector(file)) {
+                    return l.cabecera().np;
+                }
+            }
+            if (TrazaRLE.esRLE(file)) return TrazaRLE.cabecera(file).np;
+            try (BufferedReader r = Files.newBufferedReader(file)) {
+                for (int k = 0; k < 5; k++) {
+                    String line = r.readLine();
+                    if (line == null) break;
+                    if (line.startsWith("NP=")) return Long.parseLong(line.substring(3).trim());
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // sin NP el asignador proporcional trata al proceso como de tamaño minimo
+        }
+        return 0;
+    }
+
+    private static long capacidadSegunNR(String lineaNR) {
+        long nr = valorNR(lineaNR);
+        return nr > 0 ? nr : 1024; // si no se puede leer, el buffer crece solo
+    }
+
+    // NR de la linea de cabecera, o -1 si no se puede leer
+    private static long valorNR(String lineaNR) {
+        try {
+            if (lineaNR.startsWith("NR=")) return Long.parseLong(lineaNR.substring(3).trim());
+        } catch (NumberFormatException ignored) {
+            // cabecera informativa
+        }
+        return -1;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,712 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+// Politica de reemplazo de un proceso. TablaMarcos resuelve pagina -> marco;
+// la politica solo lleva el estado necesario para elegir la victima.
+// Los marcos se numeran 0..n-1 en el orden en que se asignaron.
+interface ReplacementPolicy {
+    String[] NOMBRES = {"aging", "lru", "clock", "fifo", "opt", "arc"};
+
+    // Hit en el marco; ref = indice de la referencia en la traza del proceso
+    void alAcceder(int marco, long ref);
+
+    // La pagina se cargo en el marco (libre o recien desalojado)
+    void alCargar(int marco, long pagina, long ref);
+
+    // Marco a desalojar para cargar paginaNueva; todos los marcos estan ocupados
+    int elegirVictima(long paginaNueva, long ref);
+
+    // Marco a vaciar cuando el proceso cede un marco sin cargar otra pagina
+    default int elegirLiberable(long ref) { return elegirVictima(Long.MIN_VALUE, ref); }
+
+    // El marco queda libre y 'ultimo' (el de numero mas alto) pasa a numerarse
+    // 'marco', para que los marcos sigan siendo 0..n-1
+    void liberar(int marco, int ultimo);
+
+    // Estado del marco que se conserva al cederlo a otro proceso
+    default long estado(int marco) { return 0; }
+
+    // Marco cedido por otro proceso, con la pagina y el estado que tenia alli
+    void adoptar(int marco, long pagina, long estado);
+
+    // Limite de marcos del proceso (solo lo usa ARC para sus listas fantasma)
+    default void capacidad(int marcos) {}
+
+    // El proceso cedio todos sus marcos
+    void reiniciar();
+
+    // Checkpoints (ver Checkpoint): todo el estado, para retomar la corrida
+    // exactamente donde quedo. cargar parte de una politica recien creada.
+    void guardar(DataOutput out) throws IOException;
+    void cargar(DataInput in) throws IOException;
+
+    // Politicas que necesitan la traza completa por adelantado
+    static boolean necesitaTraza(String nombre) {
+        return "opt".equals(normalizar(nombre));
+    }
+
+    static String normalizar(String nombre) {
+        String n = nombre == null ? "" : nombre.trim().toLowerCase(Locale.ROOT);
+        return n.isEmpty() ? "aging" : n;
+    }
+
+    // traza solo se usa para OPT (puede ser null en las demas)
+    static ReplacementPolicy crear(String nombre, long[] traza) {
+        switch (normalizar(nombre)) {
+            case "aging": return new Aging();
+            case "lru":   return new LRU();
+            case "clock": return new Clock();
+            case "fifo":  return new FIFO();
+            case "opt":   return new OPT(siguienteUso(traza));
+            case "arc":   return new ARC();
+            default:
+                throw new IllegalArgumentException("Politica desconocida '" + nombre
+                        + "'. Use una de " + String.join(", ", NOMBRES));
+        }
+    }
+
+    // siguiente[i] = posicion de la proxima referencia a traza[i], o MAX_VALUE
+    static int[] siguienteUso(long[] traza) {
+        int[] siguiente = new int[traza.length];
+        MapaPaginas ultima = new MapaPaginas(1024);
+        for (int i = traza.length - 1; i >= 0; i--) {
+            int j = ultima.get(traza[i]);
+            siguiente[i] = j == MapaPaginas.AUSENTE ? Integer.MAX_VALUE : j;
+            ultima.put(traza[i], i);
+        }
+        return siguiente;
+    }
+
+    // Aging de 8 bits (comportamiento original): hit pone el bit R, cada fallo
+    // desplaza todos los contadores y la victima es el menor (el primero en empate).
+    // Los contadores van empaquetados, 8 por long: el desplazamiento de todos es
+    // un shift y una mascara por palabra, y un contador en cero (que siempre es
+    // el minimo) se encuentra con la deteccion de byte nulo sin mirar byte a byte.
+    final class Aging implements ReplacementPolicy {
+        private static final long BAJOS = 0x0101010101010101L;
+        private static final long ALTOS = 0x8080808080808080L;
+        private static final long SIN_ALTO = 0x7F7F7F7F7F7F7F7FL;
+
+        // Contador del marco m: byte (m & 7) de palabra[m >>> 3]
+        private long[] palabra = new long[2];
+        private int n = 0;
+
+        public void alAcceder(int marco, long ref) {
+            poner(marco, 0x80); // Bit R = 1
+        }
+
+        public void alCargar(int marco, long pagina, long ref) {
+            usar(marco);
+            poner(marco, 0x80);
+            // Envejece todo contador despues de cada fallo
+            int palabras = (n + 7) >>> 3;
+            for (int w = 0; w < palabras; w++) {
+                palabra[w] = (palabra[w] >>> 1) & SIN_ALTO;
+            }
+        }
+
+        public int elegirVictima(long paginaNueva, long ref) {
+            int palabras = (n + 7) >>> 3;
+            for (int w = 0; w < palabras; w++) {
+                long x = palabra[w];
+                // Bit alto de cada byte en cero; el menor bit puesto es exacto
+                long ceros = (x - BAJOS) & ~x & ALTOS;
+                if (w == palabras - 1 && (n & 7) != 0) ceros &= (1L << ((n & 7) << 3)) - 1;
+                if (ceros != 0) return (w << 3) + (Long.numberOfTrailingZeros(ceros) >>> 3);
+            }
+            int lru = 0;
+            int min = 0x100;
+            for (int m = 0; m < n; m++) {
+                int e = leer(m);
+                if (e < min) {
+                    min = e;
+                    lru = m;
+                }
+            }
+            return lru;
+        }
+
+        public long estado(int marco) { return (byte) leer(marco); }
+
+        public void adoptar(int marco, long pagina, long estado) {
+            usar(marco);
+            poner(marco, (int) estado & 0xFF);
+        }
+
+        public void liberar(int marco, int ultimo) {
+            poner(marco, leer(ultimo));
+            n = ultimo;
+        }
+
+        public void reiniciar() { n = 0; }
+
+        public void guardar(DataOutput out) throws IOException {
+            out.writeInt(n);
+            for (int m = 0; m < n; m++) out.writeByte(leer(m));
+        }
+
+        public void cargar(DataInput in) throws IOException {
+            int total = in.readInt();
+            n = 0;
+            for (int m = 0; m < total; m++) {
+                usar(m);
+                poner(m, in.readUnsignedByte());
+            }
+        }
+
+        private int leer(int marco) {
+            return (int) (palabra[marco >>> 3] >>> ((marco & 7) << 3)) & 0xFF;
+        }
+
+        private void poner(int marco, int valor) {
+            int s = (marco & 7) << 3;
+            palabra[marco >>> 3] = (palabra[marco >>> 3] & ~(0xFFL << s)) | ((long) valor << s);
+        }
+
+        private void usar(int marco) {
+            int w = marco >>> 3;
+            if (w >= palabra.length) palabra = Arrays.copyOf(palabra, Math.max(w + 1, palabra.length * 2));
+            if (marco >= n) n = marco + 1;
+        }
+    }
+
+    // LRU exacto: lista doblemente enlazada intrusiva sobre los marcos
+    final class LRU implements ReplacementPolicy {
+        private final Lista lista = new Lista(16);
+
+        public void alAcceder(int marco, long ref) { lista.moverAlFinal(marco); }
+
+        public void alCargar(int marco, long pagina, long ref) { lista.moverAlFinal(marco); }
+
+        public int elegirVictima(long paginaNueva, long ref) { return lista.primero(); }
+
+        // Los marcos cedidos son los menos recientes para este proceso
+        public void adoptar(int marco, long pagina, long estado) { lista.agregarAlInicio(marco); }
+
+        public void liberar(int marco, int ultimo) { lista.liberar(marco, ultimo); }
+
+        public void reiniciar() { lista.vaciar(); }
+
+        public void guardar(DataOutput out) throws IOException { lista.guardar(out); }
+
+        public void cargar(DataInput in) throws IOException { lista.cargar(in); }
+    }
+
+    // FIFO: la victima es el marco cargado hace mas tiempo
+    final class FIFO implements ReplacementPolicy {
+        private final Lista lista = new Lista(16);
+
+        public void alAcceder(int marco, long ref) {}
+
+        public void alCargar(int marco, long pagina, long ref) { lista.moverAlFinal(marco); }
+
+        public int elegirVictima(long paginaNueva, long ref) { return lista.primero(); }
+
+        public void adoptar(int marco, long pagina, long estado) { lista.agregarAlInicio(marco); }
+
+        public void liberar(int marco, int ultimo) { lista.liberar(marco, ultimo); }
+
+        public void reiniciar() { lista.vaciar(); }
+
+        public void guardar(DataOutput out) throws IOException { lista.guardar(out); }
+
+        public void cargar(DataInput in) throws IOException { lista.cargar(in); }
+    }
+
+    // Clock / segunda oportunidad: manecilla circular sobre los marcos
+    final class Clock implements ReplacementPolicy {
+        private boolean[] usado = new boolean[16];
+        private int n = 0;
+        private int manecilla = 0;
+
+        public void alAcceder(int marco, long ref) { usado[marco] = true; }
+
+        public void alCargar(int marco, long pagina, long ref) {
+            usar(marco);
+            usado[marco] = true;
+            if (marco == manecilla) manecilla = (marco + 1) % n;
+        }
+
+        // Cada marco se salta a lo sumo una vez por vuelta: O(1) amortizado
+        public int elegirVictima(long paginaNueva, long ref) {
+            while (usado[manecilla]) {
+                usado[manecilla] = false;
+                manecilla = (manecilla + 1) % n;
+            }
+            return manecilla;
+        }
+
+        public void adoptar(int marco, long pagina, long estado) {
+            usar(marco);
+            usado[marco] = false;
+        }
+
+        public void liberar(int marco, int ultimo) {
+            usado[marco] = usado[ultimo];
+            if (manecilla == ultimo) manecilla = marco;
+            n = ultimo;
+            if (manecilla >= n) manecilla = 0;
+        }
+
+        public void reiniciar() {
+            n = 0;
+            manecilla = 0;
+        }
+
+        public void guardar(DataOutput out) throws IOException {
+            out.writeInt(n);
+            out.writeInt(manecilla);
+            for (int m = 0; m < n; m++) out.writeBoolean(usado[m]);
+        }
+
+        public void cargar(DataInput in) throws IOException {
+            int total = in.readInt();
+            manecilla = in.readInt();
+            n = 0;
+            for (int m = 0; m < total; m++) {
+                usar(m);
+                usado[m] = in.readBoolean();
+            }
+        }
+
+        private void usar(int marco) {
+            if (marco >= usado.length) usado = Arrays.copyOf(usado, Math.max(marco + 1, usado.length * 2));
+            if (marco >= n) n = marco + 1;
+        }
+    }
+
+    // Belady OPT: desaloja la pagina cuyo proximo uso esta mas lejos.
+    // Montículo maximo indexado por marco con clave = proximo uso: O(log n).
+    final class OPT implements ReplacementPolicy {
+        private final int[] siguiente;
+        private long[] clave = new long[16];
+        private int[] heap = new int[16];  // marcos
+        private int[] pos = new int[16];   // marco -> posicion en heap, -1 si no esta
+        private int tam = 0;
+
+        OPT(int[] siguiente) {
+            this.siguiente = siguiente;
+            Arrays.fill(pos, -1);
+        }
+
+        public void alAcceder(int marco, long ref) { fijar(marco, proximoUso(ref)); }
+
+        public void alCargar(int marco, long pagina, long ref) { fijar(marco, proximoUso(ref)); }
+
+        public int elegirVictima(long paginaNueva, long ref) { return heap[0]; }
+
+        // Pagina ajena: no se sabe cuando se usara, se desaloja primero
+        public void adoptar(int marco, long pagina, long estado) { fijar(marco, Long.MAX_VALUE); }
+
+        public void liberar(int marco, int ultimo) {
+            int i = pos[marco];
+            pos[marco] = -1;
+            tam--;
+            if (i < tam) {
+                int m = heap[tam];
+                heap[i] = m;
+                pos[m] = i;
+                subir(i);
+                bajar(pos[m]);
+            }
+            if (ultimo != marco) {
+                int j = pos[ultimo];
+                heap[j] = marco;
+                pos[marco] = j;
+                pos[ultimo] = -1;
+                clave[marco] = clave[ultimo];
+            }
+        }
+
+        public void reiniciar() {
+            for (int k = 0; k < tam; k++) pos[heap[k]] = -1;
+            tam = 0;
+        }
+
+        // El monticulo tal cual: con claves empatadas su forma decide la victima
+        public void guardar(DataOutput out) throws IOException {
+            out.writeInt(tam);
+            for (int k = 0; k < tam; k++) {
+                out.writeInt(heap[k]);
+                out.writeLong(clave[heap[k]]);
+            }
+        }
+
+        public void cargar(DataInput in) throws IOException {
+            reiniciar();
+            int total = in.readInt();
+            for (int k = 0; k < total; k++) {
+                int marco = in.readInt();
+                asegurar(marco);
+                clave[marco] = in.readLong();
+                heap[k] = marco;
+                pos[marco] = k;
+            }
+            tam = total;
+        }
+
+        private long proximoUso(long ref) {
+            return ref < siguiente.length ? siguiente[(int) ref] : Long.MAX_VALUE;
+        }
+
+        private void asegurar(int marco) {
+            if (marco < pos.length) return;
+            int cap = Math.max(marco + 1, pos.length * 2);
+            int viejo = pos.length;
+            pos = Arrays.copyOf(pos, cap);
+            Arrays.fill(pos, viejo, cap, -1);
+            clave = Arrays.copyOf(clave, cap);
+            heap = Arrays.copyOf(heap, cap);
+        }
+
+        private void fijar(int marco, long valor) {
+            asegurar(marco);
+            clave[marco] = valor;
+            int i = pos[marco];
+            if (i < 0) {
+                i = tam++;
+                heap[i] = marco;
+                pos[marco] = i;
+            }
+            subir(i);
+            bajar(pos[marco]);
+        }
+
+        private void subir(int i) {
+            while (i > 0) {
+                int padre = (i - 1) >> 1;
+                if (clave[heap[padre]] >= clave[heap[i]]) break;
+                intercambiar(i, padre);
+                i = padre;
+            }
+        }
+
+        private void bajar(int i) {
+            while (true) {
+                int izq = 2 * i + 1;
+                if (izq >= tam) break;
+                int mayor = izq;
+                if (izq + 1 < tam && clave[heap[izq + 1]] > clave[heap[izq]]) mayor = izq + 1;
+                if (clave[heap[i]] >= clave[heap[mayor]]) break;
+                intercambiar(i, mayor);
+                i = mayor;
+            }
+        }
+
+        private void intercambiar(int a, int b) {
+            int ma = heap[a], mb = heap[b];
+            heap[a] = mb; pos[mb] = a;
+            heap[b] = ma; pos[ma] = b;
+        }
+    }
+
+    // ARC (Megiddo y Modha): T1/T2 residentes, B1/B2 fantasmas con solo la pagina.
+    // p es el tamaño objetivo de T1 y se adapta con los hits en los fantasmas.
+    final class ARC implements ReplacementPolicy {
+        private static final byte NINGUNA = 0, EN_T1 = 1, EN_T2 = 2, EN_B1 = 3, EN_B2 = 4;
+
+        private int c = 1;
+        private int p = 0;
+        private final Lista t1 = new Lista(16), t2 = new Lista(16);
+        private long[] paginaMarco = new long[16];
+
+        // Fantasmas: nodos con la pagina, indice pagina -> nodo y lista de nodos libres
+        private final Lista b1 = new Lista(16), b2 = new Lista(16);
+        private long[] paginaFantasma = new long[16];
+        private byte[] listaFantasma = new byte[16];
+        private int[] libres = new int[16];
+        private int nLibres = 0, nFantasmas = 0;
+        private final MapaPaginas fantasmas = new MapaPaginas(16);
+
+        // Destino decidido en elegirVictima para la pagina que se carga a continuacion
+        private byte destino = NINGUNA;
+        // Tras un fallo el proceso reintenta la misma referencia; ese hit no es
+        // un segundo uso y no debe promover la pagina a T2
+        private int recienCargado = -1;
+
+        public void capacidad(int marcos) { c = Math.max(1, marcos); }
+
+        public void alAcceder(int marco, long ref) {
+            if (marco == recienCargado) {
+                recienCargado = -1;
+                return;
+            }
+            recienCargado = -1;
+            // Caso I: hit en T1 o T2 -> MRU de T2
+            t1.quitar(marco);
+            t2.moverAlFinal(marco);
+        }
+
+        public void alCargar(int marco, long pagina, long ref) {
+            if (destino == NINGUNA) destino = clasificar(pagina);
+            if (marco >= paginaMarco.length) paginaMarco = Arrays.copyOf(paginaMarco, Math.max(marco + 1, paginaMarco.length * 2));
+            paginaMarco[marco] = pagina;
+            if (destino == EN_T2) t2.moverAlFinal(marco); else t1.moverAlFinal(marco);
+            destino = NINGUNA;
+            recienCargado = marco;
+        }
+
+        public int elegirVictima(long paginaNueva, long ref) {
+            boolean enB2 = listaDe(paginaNueva) == EN_B2;
+            destino = clasificar(paginaNueva);
+            if (destino == EN_T1 && t1.tamano() + b1.tamano() >= c && t1.tamano() >= c) {
+                // Caso IV-A con B1 vacio: se descarta el LRU de T1 sin dejar fantasma
+                int victima = t1.primero();
+                t1.quitar(victima);
+                return victima;
+            }
+            return reemplazar(enB2);
+        }
+
+        public void adoptar(int marco, long pagina, long estado) {
+            if (marco >= paginaMarco.length) paginaMarco = Arrays.copyOf(paginaMarco, Math.max(marco + 1, paginaMarco.length * 2));
+            paginaMarco[marco] = pagina;
+            t1.agregarAlInicio(marco);
+        }
+
+        // REPLACE sin pagina nueva: la desalojada pasa a su lista fantasma
+        public int elegirLiberable(long ref) {
+            destino = NINGUNA;
+            return reemplazar(false);
+        }
+
+        public void liberar(int marco, int ultimo) {
+            t1.quitar(marco);
+            t2.quitar(marco);
+            if (ultimo != marco) {
+                t1.liberar(marco, ultimo);
+                t2.liberar(marco, ultimo);
+                paginaMarco[marco] = paginaMarco[ultimo];
+            }
+            if (recienCargado == marco) recienCargado = -1;
+            else if (recienCargado == ultimo) recienCargado = marco;
+        }
+
+        public void reiniciar() {
+            t1.vaciar();
+            t2.vaciar();
+            b1.vaciar();
+            b2.vaciar();
+            fantasmas.clear();
+            nFantasmas = 0;
+            nLibres = 0;
+            p = 0;
+            destino = NINGUNA;
+            recienCargado = -1;
+        }
+
+        // Residentes como (marco, pagina) y fantasmas como paginas, en orden LRU -> MRU
+        public void guardar(DataOutput out) throws IOException {
+            out.writeInt(c);
+            out.writeInt(p);
+            out.writeByte(destino);
+            out.writeInt(recienCargado);
+            for (Lista t : new Lista[]{t1, t2}) {
+                out.writeInt(t.tamano());
+                for (int m = t.primero(); m >= 0; m = t.siguiente(m)) {
+                    out.writeInt(m);
+                    out.writeLong(paginaMarco[m]);
+                }
+            }
+            for (Lista b : new Lista[]{b1, b2}) {
+                out.writeInt(b.tamano());
+                for (int nodo = b.primero(); nodo >= 0; nodo = b.siguiente(nodo)) out.writeLong(paginaFantasma[nodo]);
+            }
+        }
+
+        public void cargar(DataInput in) throws IOException {
+            reiniciar();
+            c = in.readInt();
+            p = in.readInt();
+            destino = in.readByte();
+            recienCargado = in.readInt();
+            for (Lista t : new Lista[]{t1, t2}) {
+                for (int k = in.readInt(); k > 0; k--) {
+                    int m = in.readInt();
+                    if (m >= paginaMarco.length) paginaMarco = Arrays.copyOf(paginaMarco, Math.max(m + 1, paginaMarco.length * 2));
+                    paginaMarco[m] = in.readLong();
+                    t.moverAlFinal(m);
+                }
+            }
+            for (int k = in.readInt(); k > 0; k--) agregarFantasma(in.readLong(), b1, EN_B1);
+            for (int k = in.readInt(); k > 0; k--) agregarFantasma(in.readLong(), b2, EN_B2);
+        }
+
+        // Casos II-IV: adapta p, saca la pagina de los fantasmas y recorta B1/B2
+        private byte clasificar(long x) {
+            byte l = listaDe(x);
+            if (l == EN_B1) {
+                p = Math.min(c, p + Math.max(b2.tamano() / Math.max(1, b1.tamano()), 1));
+                quitarFantasma(x);
+                return EN_T2;
+            }
+            if (l == EN_B2) {
+                p = Math.max(0, p - Math.max(b1.tamano() / Math.max(1, b2.tamano()), 1));
+                quitarFantasma(x);
+                return EN_T2;
+            }
+            int l1 = t1.tamano() + b1.tamano();
+            int total = l1 + t2.tamano() + b2.tamano();
+            if (l1 >= c) {
+                if (t1.tamano() < c && b1.tamano() > 0) descartarFantasma(b1);
+            } else if (total >= 2 * c && b2.tamano() > 0) {
+                descartarFantasma(b2);
+            }
+            return EN_T1;
+        }
+
+        // REPLACE(x, p): pasa el LRU de T1 o de T2 a su lista fantasma
+        private int reemplazar(boolean xEnB2) {
+            int n1 = t1.tamano();
+            if (n1 > 0 && (n1 > p || (xEnB2 && n1 == p) || t2.tamano() == 0)) {
+                int victima = t1.primero();
+                t1.quitar(victima);
+                agregarFantasma(paginaMarco[victima], b1, EN_B1);
+                return victima;
+            }
+            int victima = t2.primero();
+            t2.quitar(victima);
+            agregarFantasma(paginaMarco[victima], b2, EN_B2);
+            return victima;
+        }
+
+        private byte listaDe(long pagina) {
+            int nodo = fantasmas.get(pagina);
+            return nodo == MapaPaginas.AUSENTE ? NINGUNA : listaFantasma[nodo];
+        }
+
+        private void agregarFantasma(long pagina, Lista lista, byte cual) {
+            int nodo;
+            if (nLibres > 0) {
+                nodo = libres[--nLibres];
+            } else {
+                nodo = nFantasmas++;
+                if (nodo >= paginaFantasma.length) {
+                    int cap = paginaFantasma.length * 2;
+                    paginaFantasma = Arrays.copyOf(paginaFantasma, cap);
+                    listaFantasma = Arrays.copyOf(listaFantasma, cap);
+                    libres = Arrays.copyOf(libres, cap);
+                }
+            }
+            paginaFantasma[nodo] = pagina;
+            listaFantasma[nodo] = cual;
+            lista.moverAlFinal(nodo);
+            fantasmas.put(pagina, nodo);
+        }
+
+        private void quitarFantasma(long pagina) {
+            int nodo = fantasmas.get(pagina);
+            (listaFantasma[nodo] == EN_B1 ? b1 : b2).quitar(nodo);
+            liberar(nodo);
+        }
+
+        private void descartarFantasma(Lista lista) {
+            int nodo = lista.primero();
+            lista.quitar(nodo);
+            liberar(nodo);
+        }
+
+        private void liberar(int nodo) {
+            fantasmas.remove(paginaFantasma[nodo]);
+            listaFantasma[nodo] = NINGUNA;
+            libres[nLibres++] = nodo;
+        }
+    }
+
+    // Lista doblemente enlazada intrusiva sobre enteros 0..n-1 (marcos o nodos).
+    // Todas las operaciones son O(1) y no crean objetos.
+    final class Lista {
+        private static final int NADA = -1;
+        private int[] ant, sig;
+        private boolean[] dentro;
+        private int cabeza = NADA, cola = NADA, tam = 0;
+
+        Lista(int capacidad) {
+            ant = new int[capacidad];
+            sig = new int[capacidad];
+            dentro = new boolean[capacidad];
+        }
+
+        int tamano() { return tam; }
+
+        // El menos reciente; -1 si esta vacia
+        int primero() { return cabeza; }
+
+        // El que sigue a n hacia el mas reciente; -1 al final
+        int siguiente(int n) { return sig[n]; }
+
+        boolean contiene(int n) { return n < dentro.length && dentro[n]; }
+
+        void moverAlFinal(int n) {
+            quitar(n);
+            asegurar(n);
+            ant[n] = cola;
+            sig[n] = NADA;
+            if (cola == NADA) cabeza = n; else sig[cola] = n;
+            cola = n;
+            dentro[n] = true;
+            tam++;
+        }
+
+        void agregarAlInicio(int n) {
+            quitar(n);
+            asegurar(n);
+            sig[n] = cabeza;
+            ant[n] = NADA;
+            if (cabeza == NADA) cola = n; else ant[cabeza] = n;
+            cabeza = n;
+            dentro[n] = true;
+            tam++;
+        }
+
+        void quitar(int n) {
+            if (!contiene(n)) return;
+            int a = ant[n], s = sig[n];
+            if (a == NADA) cabeza = s; else sig[a] = s;
+            if (s == NADA) cola = a; else ant[s] = a;
+            dentro[n] = false;
+            tam--;
+        }
+
+        // Quita 'n' y, si 'ultimo' esta en la lista, lo renumera como 'n' en su lugar
+        void liberar(int n, int ultimo) {
+            quitar(n);
+            if (ultimo == n || !contiene(ultimo)) return;
+            asegurar(n);
+            int a = ant[ultimo], s = sig[ultimo];
+            ant[n] = a;
+            sig[n] = s;
+            if (a == NADA) cabeza = n; else sig[a] = n;
+            if (s == NADA) cola = n; else ant[s] = n;
+            dentro[ultimo] = false;
+            dentro[n] = true;
+        }
+
+        void vaciar() {
+            for (int n = cabeza; n != NADA; n = sig[n]) dentro[n] = false;
+            cabeza = cola = NADA;
+            tam = 0;
+        }
+
+        void guardar(DataOutput out) throws IOException {
+            out.writeInt(tam);
+            for (int n = cabeza; n != NADA; n = sig[n]) out.writeInt(n);
+        }
+
+        void cargar(DataInput in) throws IOException {
+            vaciar();
+            for (int k = in.readInt(); k > 0; k--) moverAlFinal(in.readInt());
+        }
+
+        private void asegurar(int n) {
+            if (n < dentro.length) return;
+            int cap = Math.max(n + 1, dentro.length * 2);
+            ant = Arrays.copyOf(ant, cap);
+            sig = Arrays.copyOf(sig, cap);
+            dentro = Arrays.copyOf(dentro, cap);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,48 @@
+import java.io.Closeable;
+import java.io.IOException;
+
+// Destino de las referencias que genera Opcion1 (texto o binario)
+interface SalidaTraza extends Closeable {
+    // matriz: 1..3 (M1, M2, M3); i, j: celda; escritura: true para 'w'
+    void referencia(int matriz, int i, int j, long pagina, long offset, boolean escritura) throws IOException;
+
+    // n repeticiones de un grupo de referencias que no cambian de pagina.
+    // Los escritores la sobrescriben para formatear la pagina una sola vez.
+    default void racha(Racha r, int n) throws IOException {
+        for (int rep = 0; rep < n; rep++) {
+            for (int k = 0; k < r.tam; k++) {
+                referencia(r.matriz[k], r.fila[k], r.col[k] + rep * r.dCol[k],
+                        r.pagina[k], r.offset[k] + (long) rep * r.paso[k], r.escritura[k]);
+            }
+        }
+    }
+
+    // Grupo de referencias que se repite: en la repeticion rep la referencia k
+    // es la celda (fila[k], col[k] + rep*dCol[k]) en pagina[k], offset[k] + rep*paso[k]
+    final class Racha {
+        final int tam;
+        final int[] matriz, fila, col, dCol, paso;
+        final long[] pagina, offset;
+        final boolean[] escritura;
+
+        Racha(int tam) {
+            this.tam = tam;
+            matriz = new int[tam];
+            fila = new int[tam];
+            col = new int[tam];
+            dCol = new int[tam];
+            paso = new int[tam];
+            pagina = new long[tam];
+            offset = new long[tam];
+            escritura = new boolean[tam];
+        }
+
+        // true si todas las referencias avanzan lo mismo por repeticion
+        boolean pasoUniforme() {
+            for (int k = 1; k < tam; k++) {
+                if (paso[k] != paso[0]) return false;
+            }
+            return true;
+        }
+    }
+}
\ No newline at end of file
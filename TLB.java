@@ -0,0 +1,129 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+// TLB asociativa por conjuntos de un proceso (pagina -> marco). La pagina p va
+// al conjunto p mod (entradas/vias) y dentro del conjunto se reemplaza la
+// entrada usada hace mas tiempo (LRU). Buscar, cargar e invalidar recorren solo
+// las 'vias' entradas de un conjunto: O(1) para una TLB dada.
+//
+// TablaMarcos invalida las entradas de las paginas que desaloja o mueve de
+// marco, asi que un hit de TLB siempre apunta al marco correcto.
+final class TLB {
+    private static final long LIBRE = -1;
+
+    private final int vias;
+    private final int conjuntos;
+    private final int mascara; // conjuntos - 1 si es potencia de 2; si no, -1
+    private final long[] etiqueta;
+    private final int[] marco;
+    private final long[] uso; // instante del ultimo acceso, para LRU
+    private long reloj = 0;
+    private int ultima = 0; // entrada del ultimo hit: las rachas sobre una pagina no recorren el conjunto
+
+    private long hits = 0;
+    private long fallos = 0;
+
+    TLB(int entradas, int vias) {
+        if (entradas <= 0 || vias <= 0 || entradas % vias != 0) {
+            throw new IllegalArgumentException("La TLB necesita entradas > 0 y multiplo de las vias (" + entradas + "/" + vias + ").");
+        }
+        this.vias = vias;
+        this.conjuntos = entradas / vias;
+        this.mascara = Integer.bitCount(conjuntos) == 1 ? conjuntos - 1 : -1;
+        this.etiqueta = new long[entradas];
+        this.marco = new int[entradas];
+        this.uso = new long[entradas];
+        Arrays.fill(etiqueta, LIBRE);
+    }
+
+    long hits() { return hits; }
+    long fallos() { return fallos; }
+
+    // Marco de la pagina: de la TLB si esta, si no de la tabla de marcos (y se
+    // carga en la TLB); -1 si la pagina no esta en memoria
+    int traducir(long pagina, TablaMarcos tabla) {
+        if (etiqueta[ultima] == pagina) {
+            hits++;
+            uso[ultima] = ++reloj;
+            return marco[ultima];
+        }
+        int base = conjunto(pagina);
+        for (int k = base; k < base + vias; k++) {
+            if (etiqueta[k] == pagina) {
+                hits++;
+                uso[k] = ++reloj;
+                ultima = k;
+                return marco[k];
+            }
+        }
+        fallos++;
+        int m = tabla.buscar(pagina);
+        if (m >= 0) cargar(base, pagina, m);
+        return m;
+    }
+
+    void invalidar(long pagina) {
+        int base = conjunto(pagina);
+        for (int k = base; k < base + vias; k++) {
+            if (etiqueta[k] == pagina) {
+                etiqueta[k] = LIBRE;
+                return;
+            }
+        }
+    }
+
+    void vaciar() {
+        Arrays.fill(etiqueta, LIBRE);
+    }
+
+    // Checkpoints: contenido, instantes de uso y contadores
+    void guardar(DataOutput out) throws IOException {
+        out.writeInt(etiqueta.length);
+        for (int k = 0; k < etiqueta.length; k++) {
+            out.writeLong(etiqueta[k]);
+            out.writeInt(marco[k]);
+            out.writeLong(uso[k]);
+        }
+        out.writeLong(reloj);
+        out.writeInt(ultima);
+        out.writeLong(hits);
+        out.writeLong(fallos);
+    }
+
+    void cargar(DataInput in) throws IOException {
+        int entradas = in.readInt();
+        if (entradas != etiqueta.length) throw new IOException("TLB de " + entradas + " entradas en el checkpoint, " + etiqueta.length + " en la corrida");
+        for (int k = 0; k < entradas; k++) {
+            etiqueta[k] = in.readLong();
+            marco[k] = in.readInt();
+            uso[k] = in.readLong();
+        }
+        reloj = in.readLong();
+        ultima = in.readInt();
+        hits = in.readLong();
+        fallos = in.readLong();
+    }
+
+    // Entrada libre del conjunto o, si no hay, la LRU
+    private void cargar(int base, long pagina, int m) {
+        int victima = base;
+        for (int k = base; k < base + vias; k++) {
+            if (etiqueta[k] == LIBRE) {
+                victima = k;
+                break;
+            }
+            if (uso[k] < uso[victima]) victima = k;
+        }
+        etiqueta[victima] = pagina;
+        marco[victima] = m;
+        uso[victima] = ++reloj;
+        ultima = victima;
+    }
+
+    private int conjunto(long pagina) {
+        int c = mascara >= 0 ? (int) (pagina & mascara) : (int) Math.floorMod(pagina, (long) conjuntos);
+        return c * vias;
+    }
+}
\ No newline at end of file
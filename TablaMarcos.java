@@ -0,0 +1,171 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Marcos de un proceso: arreglo de paginas mas un indice pagina -> marco, de
+// modo que hit/miss se resuelve en O(1). La eleccion de victima y su estado
+// (contadores, listas) quedan en la ReplacementPolicy.
+// La posicion de cada marco conserva el orden en que se asignaron.
+final class TablaMarcos {
+    private long[] pagina;
+    private int tam = 0;
+    private final MapaPaginas indice;
+    private final ReplacementPolicy politica;
+    private TLB tlb; // opcional: se invalida al desalojar o mover paginas
+
+    // Marcos cedidos por otro proceso pueden repetir una pagina que ya esta en
+    // un marco anterior; el indice apunta siempre al primero.
+    private int duplicados = 0;
+
+    TablaMarcos(int capacidad, ReplacementPolicy politica) {
+        int cap = Math.max(1, capacidad);
+        this.pagina = new long[cap];
+        this.indice = new MapaPaginas(cap);
+        this.politica = politica;
+        politica.capacidad(capacidad);
+    }
+
+    void usarTLB(TLB tlb) { this.tlb = tlb; }
+
+    int tamano() { return tam; }
+
+    boolean isEmpty() { return tam == 0; }
+
+    // Primer marco que contiene la pagina, o -1
+    int buscar(long p) {
+        return indice.get(p);
+    }
+
+    // Hit en el marco; ref = posicion de la referencia en la traza
+    void acceder(int marco, long ref) {
+        politica.alAcceder(marco, ref);
+    }
+
+    // Carga la pagina en un marco libre nuevo al final
+    int agregar(long p, long ref) {
+        int marco = anexar(p);
+        politica.alCargar(marco, p, ref);
+        return marco;
+    }
+
+    // Desaloja la victima de la politica y carga p en su marco.
+    // p no debe estar cargada (se llama tras un miss).
+    int reemplazar(long p, long ref) {
+        int marco = politica.elegirVictima(p, ref);
+        long vieja = pagina[marco];
+        pagina[marco] = p;
+        if (tlb != null) tlb.invalidar(vieja);
+        if (indice.get(vieja) == marco) {
+            int otro = duplicados > 0 ? primerMarcoCon(vieja) : -1;
+            if (otro >= 0) {
+                indice.put(vieja, otro);
+                duplicados--;
+            } else {
+                indice.remove(vieja);
+            }
+        } else {
+            duplicados--;
+        }
+        indice.put(p, marco);
+        politica.alCargar(marco, p, ref);
+        return marco;
+    }
+
+    // El proceso cede un marco: la politica elige cual vaciar y el ultimo
+    // marco pasa a ocupar su numero
+    void liberarMarco(long ref) {
+        int marco = politica.elegirLiberable(ref);
+        int ultimo = tam - 1;
+        long vieja = pagina[marco];
+        boolean viejaIndexada = indice.get(vieja) == marco;
+        long movida = pagina[ultimo];
+        // La pagina movida pasa a ser la primera copia si el indice apuntaba
+        // a un marco posterior al liberado (o al propio ultimo)
+        boolean movidaPrimera = indice.get(movida) > marco;
+        pagina[marco] = movida;
+        tam--;
+        if (tlb != null) {
+            tlb.invalidar(vieja);
+            tlb.invalidar(movida);
+        }
+        if (movidaPrimera) indice.put(movida, marco);
+        if (viejaIndexada) {
+            int otro = duplicados > 0 ? primerMarcoCon(vieja) : -1;
+            if (otro >= 0) {
+                indice.put(vieja, otro);
+                duplicados--;
+            } else {
+                indice.remove(vieja);
+            }
+        } else {
+            duplicados--;
+        }
+        politica.liberar(marco, ultimo);
+    }
+
+    // Nuevo limite de marcos del proceso
+    void limite(int marcos) {
+        politica.capacidad(Math.max(marcos, tam));
+    }
+
+    // Pasa todos los marcos (con su contenido y estado) al final de otra tabla
+    void transferirA(TablaMarcos destino) {
+        destino.crecer(destino.tam + tam);
+        for (int m = 0; m < tam; m++) {
+            int d = destino.anexar(pagina[m]);
+            destino.politica.adoptar(d, pagina[m], politica.estado(m));
+        }
+        clear();
+    }
+
+    void clear() {
+        tam = 0;
+        duplicados = 0;
+        indice.clear();
+        politica.reiniciar();
+        if (tlb != null) tlb.vaciar();
+    }
+
+    // Checkpoints: paginas por marco y estado de la politica; el indice y los
+    // duplicados se reconstruyen (el indice apunta siempre a la primera copia)
+    void guardar(DataOutput out) throws IOException {
+        out.writeInt(tam);
+        for (int m = 0; m < tam; m++) out.writeLong(pagina[m]);
+        politica.guardar(out);
+    }
+
+    // La TLB queda vacia; se carga aparte
+    void cargar(DataInput in) throws IOException {
+        clear();
+        int n = in.readInt();
+        crecer(n);
+        for (int m = 0; m < n; m++) anexar(in.readLong());
+        politica.cargar(in);
+    }
+
+    private int anexar(long p) {
+        if (tam == pagina.length) crecer(tam + 1);
+        int marco = tam++;
+        pagina[marco] = p;
+        if (indice.get(p) == MapaPaginas.AUSENTE) {
+            indice.put(p, marco);
+        } else {
+            duplicados++;
+        }
+        return marco;
+    }
+
+    // Se llama con el marco reemplazado ya sobrescrito
+    private int primerMarcoCon(long p) {
+        for (int m = 0; m < tam; m++) {
+            if (pagina[m] == p) return m;
+        }
+        return -1;
+    }
+
+    private void crecer(int minimo) {
+        if (minimo <= pagina.length) return;
+        pagina = Arrays.copyOf(pagina, Math.max(minimo, pagina.length * 2));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,447 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+// Formato binario de trazas (proc<i>.bin):
+//   cabecera fija: MAGIA(4) VERSION(1) TP(4) NF(4) NC(4) NR(8) NP(8) ELEM(4)
+//                  DISPOSICION(1) (desde la version 3)
+//   NR registros varint: (zigzag(dir - dirAnterior) << 1) | bitEscritura
+//   cola (desde la version 2): FIN(4) referencias escritas(8) CRC32(4)
+// donde dir = pagina*TP + offset. En el recorrido fila a fila el delta casi
+// siempre cabe en 1-2 bytes, frente a ~20 bytes por linea del formato texto.
+// El CRC32 de la cola cubre todos los bytes anteriores; los lectores se
+// detienen en NR y no la leen, solo la usa ValidadorTrazas.
+// DISPOSICION dice como se guarda M2 (FILAS: NFxNC como M1 y M3;
+// M2_TRASPUESTA: NCxNF, patron transpuesta) para rehacer las etiquetas
+// M<k>:[i-j] al volver a texto. Las versiones 1 y 2 son siempre FILAS.
+public final class TrazaBinaria {
+    static final int MAGIA = 0x54524231; // "TRB1"
+    static final byte VERSION = 3;
+    static final byte VERSION_SIN_COLA = 1;
+    static final byte VERSION_SIN_DISPOSICION = 2;
+    static final int TAM_CABECERA_V2 = 4 + 1 + 4 + 4 + 4 + 8 + 8 + 4;
+    static final int TAM_CABECERA = TAM_CABECERA_V2 + 1;
+    static final byte FILAS = 0, M2_TRASPUESTA = 1;
+    static final int FIN = 0x46494E31; // "FIN1"
+    static final int TAM_COLA = 4 + 8 + 4;
+
+    private TrazaBinaria() {}
+
+    static final class Cabecera {
+        final int tp, nf, nc, elemSize;
+        final long nr, np;
+        final byte disposicion;
+        Cabecera(int tp, int nf, int nc, long nr, long np, int elemSize) {
+            this(tp, nf, nc, nr, np, elemSize, FILAS);
+        }
+        Cabecera(int tp, int nf, int nc, long nr, long np, int elemSize, byte disposicion) {
+            this.tp = tp; this.nf = nf; this.nc = nc;
+            this.nr = nr; this.np = np; this.elemSize = elemSize;
+            this.disposicion = disposicion;
+        }
+    }
+
+    static boolean versionSoportada(byte version) {
+        return version >= VERSION_SIN_COLA && version <= VERSION;
+    }
+
+    static int tamCabecera(byte version) {
+        return version > VERSION_SIN_DISPOSICION ? TAM_CABECERA : TAM_CABECERA_V2;
+    }
+
+    // Detecta el formato por los primeros bytes, no por la extension
+    static boolean esBinaria(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] b = in.readNBytes(4);
+            if (b.length < 4) return false;
+            int m = ((b[0] & 0xFF) << 24) | ((b[1] & 0xFF) << 16) | ((b[2] & 0xFF) << 8) | (b[3] & 0xFF);
+            return m == MAGIA;
+        }
+    }
+
+    // Escribe una traza binaria referencia por referencia
+    static final class Escritor implements SalidaTraza {
+        private final CheckedOutputStream suma;
+        private final DataOutputStream out;
+        private final int tp;
+        private long dirAnterior = 0;
+        private long escritas = 0;
+        // Varints ya codificados de una racha, uno por referencia del grupo
+        private byte[][] codigos = new byte[0][];
+        private int[] lCodigo = new int[0];
+        private long[] base = new long[0];
+
+        Escritor(Path file, Cabecera c) throws IOException {
+            this.suma = new CheckedOutputStream(Files.newOutputStream(file), new CRC32());
+            this.out = new DataOutputStream(new BufferedOutputStream(suma, 1 << 16));
+            this.tp = c.tp;
+            out.writeInt(MAGIA);
+            out.writeByte(VERSION);
+            out.writeInt(c.tp);
+            out.writeInt(c.nf);
+            out.writeInt(c.nc);
+            out.writeLong(c.nr);
+            out.writeLong(c.np);
+            out.writeInt(c.elemSize);
+            out.writeByte(c.disposicion);
+        }
+
+        // Las etiquetas M<k>:[i-j] se deducen de la direccion, no se guardan
+        @Override
+        public void referencia(int matriz, int i, int j, long pagina, long offset, boolean escritura) throws IOException {
+            referencia(pagina, offset, escritura);
+        }
+
+        // Con paso uniforme, despues de la primera repeticion los deltas entre
+        // referencias consecutivas son constantes: se codifican una vez y se copian
+        @Override
+        public void racha(SalidaTraza.Racha r, int n) throws IOException {
+            if (n <= 1 || !r.pasoUniforme()) {
+                SalidaTraza.super.racha(r, n);
+                return;
+            }
+            if (codigos.length < r.tam) {
+                codigos = new byte[r.tam][10];
+                lCodigo = new int[r.tam];
+                base = new long[r.tam];
+            }
+            for (int k = 0; k < r.tam; k++) {
+                base[k] = r.pagina[k] * tp + r.offset[k];
+                referencia(r.pagina[k], r.offset[k], r.escritura[k]);
+            }
+            int paso = r.paso[0];
+            for (int k = 0; k < r.tam; k++) {
+                long delta = k == 0 ? base[0] + paso - base[r.tam - 1] : base[k] - base[k - 1];
+                long zz = (delta << 1) ^ (delta >> 63);
+                lCodigo[k] = codificarVarint((zz << 1) | (r.escritura[k] ? 1L : 0L), codigos[k]);
+            }
+            for (int rep = 1; rep < n; rep++) {
+                for (int k = 0; k < r.tam; k++) out.write(codigos[k], 0, lCodigo[k]);
+            }
+            escritas += (long) (n - 1) * r.tam;
+            dirAnterior = base[r.tam - 1] + (long) (n - 1) * paso;
+        }
+
+        void referencia(long pagina, long offset, boolean escritura) throws IOException {
+            long dir = pagina * tp + offset;
+            long delta = dir - dirAnterior;
+            dirAnterior = dir;
+            long zz = (delta << 1) ^ (delta >> 63);
+            escribirVarint((zz << 1) | (escritura ? 1L : 0L));
+            escritas++;
+        }
+
+        private static int codificarVarint(long v, byte[] dst) {
+            int n = 0;
+            while ((v & ~0x7FL) != 0) {
+                dst[n++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            dst[n++] = (byte) v;
+            return n;
+        }
+
+        private void escribirVarint(long v) throws IOException {
+            while ((v & ~0x7FL) != 0) {
+                out.write((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            out.write((int) v);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                escribirCola(out, suma, escritas);
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    // La cola va por el mismo flujo; el CRC se toma antes de escribirla
+    static void escribirCola(DataOutputStream out, CheckedOutputStream suma, long referencias) throws IOException {
+        out.flush();
+        long crc = suma.getChecksum().getValue();
+        out.writeInt(FIN);
+        out.writeLong(referencias);
+        out.writeInt((int) crc);
+    }
+
+    // Compara una cola ya leida con lo que se recorrio de la traza
+    static void comprobarCola(ByteBuffer cola, long nr, long crc, Path file) throws IOException {
+        if (cola.remaining() < TAM_COLA || cola.getInt() != FIN) {
+            throw new IOException(file.getFileName() + ": falta la cola de fin de traza (archivo truncado)");
+        }
+        long escritas = cola.getLong();
+        if (escritas != nr) {
+            throw new IOException(file.getFileName() + ": la cola indica " + escritas + " referencias pero NR=" + nr);
+        }
+        if ((cola.getInt() & 0xFFFFFFFFL) != crc) {
+            throw new IOException(file.getFileName() + ": el CRC32 no coincide (traza dañada)");
+        }
+    }
+
+    // Sin leer el cuerpo: los ultimos TAM_COLA bytes deben ser una cola con NR
+    // referencias. Sirve para cualquier traza con cola fuera de gzip.
+    static void comprobarFinal(Path file, long nr) throws IOException {
+        try (FileChannel c = FileChannel.open(file)) {
+            long tam = c.size();
+            if (tam < TAM_CABECERA_V2 + TAM_COLA) {
+                throw new IOException(file.getFileName() + ": falta la cola de fin de traza (archivo truncado)");
+            }
+            ByteBuffer cola = ByteBuffer.allocate(TAM_COLA);
+            while (cola.hasRemaining()) {
+                if (c.read(cola, tam - TAM_COLA + cola.position()) < 0) break;
+            }
+            cola.flip();
+            if (cola.remaining() < TAM_COLA || cola.getInt() != FIN || cola.getLong() != nr) {
+                throw new IOException(file.getFileName() + ": falta la cola de fin de traza o no indica NR=" + nr + " (archivo truncado)");
+            }
+        }
+    }
+
+    // Recorre la traza sin guardar nada: NR referencias exactas, toda direccion
+    // dentro de [0, NP*TP) y, desde la version 2, la cola con su CRC32. Lee en
+    // bloques y decodifica los varint a mano, sin un read() por byte.
+    static long verificar(Path file) throws IOException {
+        long tam = Files.size(file);
+        CRC32 crc = new CRC32();
+        byte[] buf = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(file)) {
+            if (in.readNBytes(buf, 0, 5) < 5) throw new IOException(file.getFileName() + ": cabecera incompleta");
+            ByteBuffer h = ByteBuffer.wrap(buf);
+            if (h.getInt() != MAGIA) throw new IOException("El archivo " + file.getFileName() + " no es una traza binaria");
+            byte version = h.get();
+            if (!versionSoportada(version)) throw new IOException("Version de traza binaria no soportada: " + version);
+            int tamCabecera = tamCabecera(version);
+            if (in.readNBytes(buf, 5, tamCabecera - 5) < tamCabecera - 5) {
+                throw new IOException(file.getFileName() + ": cabecera incompleta");
+            }
+            crc.update(buf, 0, tamCabecera);
+            int tp = h.getInt();
+            h.getInt();
+            h.getInt();
+            long nr = h.getLong();
+            long np = h.getLong();
+            if (tp <= 0 || nr <= 0 || np <= 0) {
+                throw new IOException(file.getFileName() + ": cabecera invalida (TP=" + tp + ", NR=" + nr + ", NP=" + np + ")");
+            }
+            long limite = np > Long.MAX_VALUE / tp ? Long.MAX_VALUE : np * tp;
+            boolean conCola = version != VERSION_SIN_COLA;
+            if (tamCabecera == TAM_CABECERA && h.get(TAM_CABECERA_V2) > M2_TRASPUESTA) {
+                throw new IOException(file.getFileName() + ": disposicion desconocida " + h.get(TAM_CABECERA_V2));
+            }
+            long cuerpo = tam - tamCabecera - (conCola ? TAM_COLA : 0);
+            if (cuerpo < 0) throw new IOException(file.getFileName() + ": falta la cola de fin de traza (archivo truncado)");
+
+            long n = 0, dir = 0, v = 0;
+            int shift = 0;
+            while (cuerpo > 0) {
+                int leidos = in.read(buf, 0, (int) Math.min(buf.length, cuerpo));
+                if (leidos < 0) throw new IOException(file.getFileName() + ": traza truncada tras " + n + " referencias");
+                crc.update(buf, 0, leidos);
+                cuerpo -= leidos;
+                for (int k = 0; k < leidos; k++) {
+                    byte b = buf[k];
+                    v |= (long) (b & 0x7F) << shift;
+                    if (b < 0) { // bit de continuacion
+                        shift += 7;
+                        if (shift >= 64) throw new IOException(file.getFileName() + ": varint invalido en referencia " + n);
+                        continue;
+                    }
+                    long zz = v >>> 1;
+                    dir += (zz >>> 1) ^ -(zz & 1L);
+                    if (dir < 0 || dir >= limite) {
+                        throw new IOException(file.getFileName() + ": la referencia " + n + " cae en la pagina "
+                                + Math.floorDiv(dir, tp) + ", fuera de NP=" + np);
+                    }
+                    if (++n > nr) throw new IOException(file.getFileName() + ": hay mas de NR=" + nr + " referencias");
+                    v = 0;
+                    shift = 0;
+                }
+            }
+            if (shift != 0) throw new IOException(file.getFileName() + ": la ultima referencia esta cortada");
+            if (n != nr) {
+                throw new IOException(file.getFileName() + ": NR=" + nr + " pero hay " + n + " referencias (traza truncada?)");
+            }
+            if (conCola) comprobarCola(ByteBuffer.wrap(in.readNBytes(TAM_COLA)), nr, crc.getValue(), file);
+            return n;
+        }
+    }
+
+    // Lee una traza binaria de forma secuencial
+    static final class Lector implements Closeable {
+        private final DataInputStream in;
+        private final Cabecera cabecera;
+        private long leidas = 0;
+        private long dir = 0;
+        private boolean escritura;
+
+        Lector(Path file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+            if (in.readInt() != MAGIA) {
+                in.close();
+                throw new IOException("El archivo " + file.getFileName() + " no es una traza binaria");
+            }
+            byte version = in.readByte();
+            if (!versionSoportada(version)) {
+                in.close();
+                throw new IOException("Version de traza binaria no soportada: " + version);
+            }
+            int tp = in.readInt();
+            int nf = in.readInt();
+            int nc = in.readInt();
+            long nr = in.readLong();
+            long np = in.readLong();
+            int elemSize = in.readInt();
+            byte disposicion = version > VERSION_SIN_DISPOSICION ? in.readByte() : FILAS;
+            this.cabecera = new Cabecera(tp, nf, nc, nr, np, elemSize, disposicion);
+        }
+
+        Cabecera cabecera() { return cabecera; }
+
+        // Avanza a la siguiente referencia; false al llegar a NR
+        boolean siguiente() throws IOException {
+            if (leidas >= cabecera.nr) return false;
+            long v = leerVarint();
+            escritura = (v & 1L) != 0;
+            long zz = v >>> 1;
+            dir += (zz >>> 1) ^ -(zz & 1L);
+            leidas++;
+            return true;
+        }
+
+        long pagina()        { return dir / cabecera.tp; }
+        long offset()        { return dir % cabecera.tp; }
+        long direccion()     { return dir; }
+        boolean escritura()  { return escritura; }
+
+        private long leerVarint() throws IOException {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = in.read();
+                if (b < 0) throw new EOFException("Traza binaria truncada tras " + leidas + " referencias");
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return v;
+            }
+            throw new IOException("Varint invalido en referencia " + leidas);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    // Conversion texto -> binario. Las etiquetas M<k>:[i-j] no se guardan:
+    // se reconstruyen a partir de la direccion al volver a texto, con la
+    // disposicion de M2 que se deduce de las propias etiquetas.
+    static void textoABinario(Path txt, Path bin, int elemSize) throws IOException {
+        byte disposicion = disposicionTexto(txt, elemSize);
+        try (BufferedReader r = Files.newBufferedReader(txt, StandardCharsets.UTF_8)) {
+            int tp = (int) valorCabecera(r, "TP");
+            int nf = (int) valorCabecera(r, "NF");
+            int nc = (int) valorCabecera(r, "NC");
+            long nr = valorCabecera(r, "NR");
+            long np = valorCabecera(r, "NP");
+            try (Escritor w = new Escritor(bin, new Cabecera(tp, nf, nc, nr, np, elemSize, disposicion))) {
+                long n = 0;
+                String line;
+                while ((line = r.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty()) continue;
+                    String[] parts = line.split(",");
+                    if (parts.length < 4) throw new IOException("Linea invalida en " + txt.getFileName() + ": " + line);
+                    long pagina = Long.parseLong(parts[1].trim());
+                    long offset = Long.parseLong(parts[2].trim());
+                    w.referencia(pagina, offset, parts[3].trim().equals("w"));
+                    n++;
+                }
+                if (n != nr) throw new IOException("NR=" + nr + " pero se leyeron " + n + " referencias en " + txt.getFileName());
+            }
+        }
+    }
+
+    // Con NF == NC las dos disposiciones dan las mismas etiquetas, y con
+    // NF != NC solo difieren desde la fila 1 de M2: basta la primera etiqueta
+    // M2:[i-j] con i > 0, que en los patrones llega pronto (en filas, tras la
+    // primera fila). Si ninguna cuadra con la direccion, no se podrian rehacer.
+    private static byte disposicionTexto(Path txt, int elemSize) throws IOException {
+        try (BufferedReader r = Files.newBufferedReader(txt, StandardCharsets.UTF_8)) {
+            int tp = (int) valorCabecera(r, "TP");
+            int nf = (int) valorCabecera(r, "NF");
+            int nc = (int) valorCabecera(r, "NC");
+            valorCabecera(r, "NR");
+            valorCabecera(r, "NP");
+            if (nf == nc) return FILAS;
+            long bytesM = (long) nf * nc * elemSize;
+            String line;
+            while ((line = r.readLine()) != null) {
+                line = line.trim();
+                if (!line.startsWith("M2:[")) continue;
+                int guion = line.indexOf('-'), cierre = line.indexOf(']'), coma = line.indexOf(',');
+                if (guion < 0 || cierre < guion || coma < cierre) continue; // la conversion la rechaza despues
+                long i = Long.parseLong(line.substring(4, guion));
+                if (i == 0) continue;
+                long j = Long.parseLong(line.substring(guion + 1, cierre));
+                String[] parts = line.substring(coma + 1).split(",");
+                long dir = Long.parseLong(parts[0].trim()) * tp + Long.parseLong(parts[1].trim());
+                long celda = dir % bytesM / elemSize;
+                if (i * nc + j == celda) return FILAS;
+                if (i * nf + j == celda) return M2_TRASPUESTA;
+                throw new IOException("La etiqueta " + line.substring(0, cierre + 1) + " de " + txt.getFileName()
+                        + " no corresponde a M2 guardada " + nf + "x" + nc + " ni " + nc + "x" + nf
+                        + ": no se podria reconstruir al volver a texto");
+            }
+            return FILAS;
+        }
+    }
+
+    // Conversion binario -> texto, con el mismo formato que escribe Opcion1
+    static void binarioATexto(Path bin, Path txt) throws IOException {
+        try (Lector l = new Lector(bin);
+             BufferedWriter w = Files.newBufferedWriter(txt, StandardCharsets.UTF_8)) {
+            Cabecera c = l.cabecera();
+            w.write("TP=" + c.tp + "\nNF=" + c.nf + "\nNC=" + c.nc + "\nNR=" + c.nr + "\nNP=" + c.np + "\n");
+            long bytesM = (long) c.nf * c.nc * c.elemSize; // tamaño de una matriz
+            // Columnas por fila de cada matriz: M2 traspuesta es NCxNF
+            int ncM2 = c.disposicion == M2_TRASPUESTA ? c.nf : c.nc;
+            StringBuilder sb = new StringBuilder(64);
+            while (l.siguiente()) {
+                long dir = l.direccion();
+                long matriz = dir / bytesM + 1;
+                long celda = dir % bytesM / c.elemSize;
+                int ancho = matriz == 2 ? ncM2 : c.nc;
+                sb.setLength(0);
+                sb.append('M').append(matriz).append(":[")
+                  .append(celda / ancho).append('-').append(celda % ancho).append("],")
+                  .append(l.pagina()).append(',').append(l.offset()).append(',')
+                  .append(l.escritura() ? 'w' : 'r').append('\n');
+                w.append(sb);
+            }
+        }
+    }
+
+    private static long valorCabecera(BufferedReader r, String clave) throws IOException {
+        String line = r.readLine();
+        if (line == null || !line.startsWith(clave + "=")) {
+            throw new IOException("Se esperaba la cabecera " + clave + "=");
+        }
+        return Long.parseLong(line.substring(clave.length() + 1).trim());
+    }
+}
\ No newline at end of file
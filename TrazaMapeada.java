@@ -0,0 +1,201 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Lee proc<i>.txt o proc<i>.bin mapeando el archivo con FileChannel.map y
+// decodificando las paginas directamente de los bytes, sin Strings ni listas.
+// El archivo se recorre por ventanas, asi que trazas de varios GB ocupan lo
+// mismo en el heap que una de 1 KB.
+final class TrazaMapeada implements FuentePaginas {
+    // Ventana mapeada; un MappedByteBuffer no puede superar 2 GB
+    static final long TAM_VENTANA = 1L << 28;
+    // Margen que garantiza una linea o varint completo dentro de la ventana
+    private static final int MARGEN = 256;
+
+    private final Path file;
+    private final FileChannel canal;
+    private final long tamArchivo;
+    private final boolean binario;
+    private MappedByteBuffer ventana;
+    private long inicioVentana;
+
+    // Binario: TP, referencias restantes y ultima direccion decodificada
+    private int tp;
+    private long restantes;
+    private long dir;
+
+    // Texto: numero de linea actual (para mensajes de error)
+    private long linea;
+
+    private boolean hay;
+    private long actual;
+
+    private TrazaMapeada(Path file, FileChannel canal, boolean binario) throws IOException {
+        this.file = file;
+        this.canal = canal;
+        this.tamArchivo = canal.size();
+        this.binario = binario;
+        mapear(0);
+    }
+
+    // Abre la traza; lanza IOException si la cabecera no es valida o no hay referencias
+    static TrazaMapeada abrir(Path file) throws IOException {
+        boolean binario = TrazaBinaria.esBinaria(file);
+        FileChannel canal = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            TrazaMapeada t = new TrazaMapeada(file, canal, binario);
+            if (binario) t.leerCabeceraBinaria(); else t.saltarCabeceraTexto();
+            t.avanzar();
+            if (!t.hay) throw new IOException("No se encontraron referencias de páginas en " + file.getFileName());
+            return t;
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hayMas() { return hay; }
+
+    @Override
+    public long actual() { return actual; }
+
+    @Override
+    public void avanzar() {
+        try {
+            if (binario) siguienteBinaria(); else siguienteTexto();
+        } catch (IOException e) {
+            throw new IllegalStateException("Error leyendo archivo " + file.getFileName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Binario: exacto por NR. Texto: lineas no vacias que quedan en la ventana
+    // actual, sin mapear mas (una cota menor solo acorta la epoca).
+    @Override
+    public long restantesHasta(long k) {
+        if (!hay) return 0;
+        if (binario) return Math.min(k, restantes + 1);
+        long n = 1;
+        boolean conDatos = false;
+        for (int i = ventana.position(), fin = ventana.limit(); i < fin && n < k; i++) {
+            byte b = ventana.get(i);
+            if (b == '\n') {
+                if (conDatos) n++;
+                conDatos = false;
+            } else if (b != ' ' && b != '\t' && b != '\r') {
+                conDatos = true;
+            }
+        }
+        return Math.min(k, n);
+    }
+
+    @Override
+    public void close() {
+        try {
+            canal.close();
+        } catch (IOException ignored) {
+            // solo lectura: no hay nada que perder
+        }
+    }
+
+    private void mapear(long desde) throws IOException {
+        inicioVentana = desde;
+        long tam = Math.min(TAM_VENTANA, tamArchivo - desde);
+        ventana = canal.map(FileChannel.MapMode.READ_ONLY, desde, tam);
+    }
+
+    // Remapea si quedan menos de MARGEN bytes y el archivo sigue
+    private void asegurarMargen() throws IOException {
+        if (ventana.remaining() < MARGEN && inicioVentana + ventana.limit() < tamArchivo) {
+            mapear(inicioVentana + ventana.position());
+        }
+    }
+
+    private void leerCabeceraBinaria() throws IOException {
+        if (tamArchivo < TrazaBinaria.TAM_CABECERA_V2) throw new IOException("Cabecera binaria incompleta en " + file.getFileName());
+        ventana.getInt(); // magia, ya verificada
+        byte version = ventana.get();
+        if (!TrazaBinaria.versionSoportada(version)) throw new IOException("Version de traza binaria no soportada: " + version);
+        tp = ventana.getInt();
+        ventana.getInt(); // NF
+        ventana.getInt(); // NC
+        restantes = ventana.getLong();
+        ventana.getLong(); // NP
+        ventana.getInt();  // tamaño de elemento
+        if (version > TrazaBinaria.VERSION_SIN_DISPOSICION) ventana.get(); // disposicion de M2
+    }
+
+    private void siguienteBinaria() throws IOException {
+        if (restantes == 0) { hay = false; return; }
+        asegurarMargen();
+        long v = 0;
+        int shift = 0;
+        while (true) {
+            if (!ventana.hasRemaining()) throw new IOException("Traza binaria truncada");
+            int b = ventana.get();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) break;
+            shift += 7;
+            if (shift >= 64) throw new IOException("Varint invalido");
+        }
+        long zz = v >>> 1;
+        dir += (zz >>> 1) ^ -(zz & 1L);
+        restantes--;
+        actual = dir / tp;
+        hay = true;
+    }
+
+    private void saltarCabeceraTexto() throws IOException {
+        for (int k = 0; k < 5; k++) {
+            asegurarMargen();
+            if (!ventana.hasRemaining()) {
+                throw new IOException("Archivo " + file.getFileName() + " no tiene suficientes líneas de metadatos (mínimo 5)");
+            }
+            while (ventana.hasRemaining() && ventana.get() != '\n') { }
+            linea++;
+        }
+    }
+
+    // Toma el segundo campo de la siguiente linea no vacia: M1:[i-j],pagina,offset,r
+    private void siguienteTexto() throws IOException {
+        while (true) {
+            asegurarMargen();
+            if (!ventana.hasRemaining()) { hay = false; return; }
+            linea++;
+            // Primer campo
+            int b = 0;
+            boolean vacia = true;
+            while (ventana.hasRemaining() && (b = ventana.get()) != ',' && b != '\n') {
+                if (b != ' ' && b != '\t' && b != '\r') vacia = false;
+            }
+            if (b == '\n' || !ventana.hasRemaining()) {
+                if (vacia) continue;
+                throw new IOException("Formato inválido en archivo " + file.getFileName() + " línea " + linea + ": se esperan al menos 3 campos");
+            }
+            // Segundo campo: la pagina
+            long pagina = 0;
+            int digitos = 0;
+            while (ventana.hasRemaining() && ((b = ventana.get()) == ' ' || b == '\t')) { }
+            while (b >= '0' && b <= '9') {
+                pagina = pagina * 10 + (b - '0');
+                digitos++;
+                if (!ventana.hasRemaining()) { b = -1; break; }
+                b = ventana.get();
+            }
+            while ((b == ' ' || b == '\t') && ventana.hasRemaining()) b = ventana.get();
+            if (digitos == 0) {
+                throw new IOException("Coordenada inválida en archivo " + file.getFileName() + " línea " + linea);
+            }
+            if (b != ',') {
+                throw new IOException("Formato inválido en archivo " + file.getFileName() + " línea " + linea + ": se esperan al menos 3 campos");
+            }
+            // Resto de la linea
+            while (ventana.hasRemaining() && ventana.get() != '\n') { }
+            actual = pagina;
+            hay = true;
+            return;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,427 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Traza comprimida por rachas (proc<i>.rle), solo con las paginas:
+//   cabecera fija: MAGIA(4) VERSION(1) TP(4) NF(4) NC(4) NR(8) NP(8) ELEM(4)
+//   registros varint hasta sumar NR referencias: G N zigzag(p1 - pAnterior) ... zigzag(pG - pG-1)
+//   cola (desde la version 2): la misma de TrazaBinaria, FIN(4) NR(8) CRC32(4)
+// Un registro es un grupo de G paginas que se repite N veces seguidas: en el
+// recorrido por filas, (M1, M2, M3) mientras ninguna matriz cambia de pagina.
+// Offsets y bit de escritura no se guardan; para el simulador basta la pagina.
+// Opcionalmente todo el archivo va dentro de gzip (se detecta por los bytes);
+// la cola y su CRC van dentro del gzip, sobre los bytes sin comprimir.
+final class TrazaRLE {
+    static final int MAGIA = 0x54524C31; // "TRL1"
+    static final byte VERSION = 2;
+    static final byte VERSION_SIN_COLA = 1;
+    // Periodo maximo que el escritor detecta en referencias sueltas
+    static final int MAX_GRUPO = 8;
+
+    private static final int GZIP = 0x1F8B;
+
+    private TrazaRLE() {}
+
+    static Path archivo(Path dir, int pid) {
+        return dir.resolve("proc" + pid + ".rle");
+    }
+
+    // Detecta el formato por los primeros bytes (con o sin gzip), no por la extension
+    static boolean esRLE(Path file) throws IOException {
+        try (InputStream in = abrirEntrada(file)) {
+            byte[] b = in.readNBytes(4);
+            if (b.length < 4) return false;
+            int m = ((b[0] & 0xFF) << 24) | ((b[1] & 0xFF) << 16) | ((b[2] & 0xFF) << 8) | (b[3] & 0xFF);
+            return m == MAGIA;
+        } catch (IOException e) {
+            return false; // gzip danado o de otro contenido: no es una traza RLE
+        }
+    }
+
+    // true si el archivo va dentro de gzip: entonces la cola no se ve desde afuera
+    static boolean comprimida(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            int b0 = in.read(), b1 = in.read();
+            return ((b0 << 8) | b1) == GZIP;
+        }
+    }
+
+    private static InputStream abrirEntrada(Path file) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+        in.mark(2);
+        int b0 = in.read(), b1 = in.read();
+        in.reset();
+        if (((b0 << 8) | b1) != GZIP) return in;
+        try {
+            return new BufferedInputStream(new GZIPInputStream(in, 1 << 16), 1 << 16);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    // Escribe una traza RLE. Las rachas del generador son registros directos;
+    // las referencias sueltas (columnas, matmul, conversiones) se agrupan
+    // buscando un periodo de hasta MAX_GRUPO paginas que se repita.
+    static final class Escritor implements SalidaTraza {
+        private final CheckedOutputStream suma;
+        private final DataOutputStream out;
+        private long anterior = 0;
+        private long escritas = 0;
+
+        // Grupo en curso: grupo[0..tam) repetido n veces, mas 'pos' paginas de
+        // la siguiente repeticion ya confirmadas
+        private long[] grupo = new long[MAX_GRUPO];
+        private int tam = 0, pos = 0;
+        private long n = 0;
+        // Paginas sueltas que aun no forman grupo
+        private final long[] sueltas = new long[2 * MAX_GRUPO];
+        private int nSueltas = 0;
+
+        Escritor(Path file, TrazaBinaria.Cabecera c, boolean gzip) throws IOException {
+            OutputStream base = Files.newOutputStream(file);
+            if (gzip) base = new GZIPOutputStream(base, 1 << 16);
+            this.suma = new CheckedOutputStream(base, new CRC32());
+            this.out = new DataOutputStream(new BufferedOutputStream(suma, 1 << 16));
+            out.writeInt(MAGIA);
+            out.writeByte(VERSION);
+            out.writeInt(c.tp);
+            out.writeInt(c.nf);
+            out.writeInt(c.nc);
+            out.writeLong(c.nr);
+            out.writeLong(c.np);
+            out.writeInt(c.elemSize);
+        }
+
+        @Override
+        public void referencia(int matriz, int i, int j, long pagina, long offset, boolean escritura) throws IOException {
+            pagina(pagina);
+        }
+
+        @Override
+        public void racha(SalidaTraza.Racha r, int n) throws IOException {
+            if (n <= 0) return;
+            vaciar();
+            escribirVarint(r.tam);
+            escribirVarint(n);
+            for (int k = 0; k < r.tam; k++) escribirPagina(r.pagina[k]);
+            escritas += (long) r.tam * n;
+        }
+
+        void pagina(long p) throws IOException {
+            if (tam > 0) {
+                if (grupo[pos] == p) {
+                    if (++pos == tam) {
+                        n++;
+                        pos = 0;
+                    }
+                    return;
+                }
+                // La repeticion se corto: lo ya confirmado de ella vuelve a sueltas
+                escribir(grupo, tam, n);
+                System.arraycopy(grupo, 0, sueltas, 0, pos);
+                nSueltas = pos;
+                tam = 0;
+                pos = 0;
+            }
+            sueltas[nSueltas++] = p;
+            // Periodo mas corto t con las ultimas 2t sueltas repetidas
+            for (int t = 1; 2 * t <= nSueltas; t++) {
+                int ini = nSueltas - 2 * t;
+                if (!periodica(ini, t)) continue;
+                if (ini > 0) escribir(sueltas, ini, 1);
+                System.arraycopy(sueltas, ini, grupo, 0, t);
+                tam = t;
+                n = 2;
+                nSueltas = 0;
+                return;
+            }
+            if (nSueltas == sueltas.length) {
+                escribir(sueltas, MAX_GRUPO, 1);
+                System.arraycopy(sueltas, MAX_GRUPO, sueltas, 0, nSueltas - MAX_GRUPO);
+                nSueltas -= MAX_GRUPO;
+            }
+        }
+
+        private boolean periodica(int ini, int t) {
+            for (int k = 0; k < t; k++) {
+                if (sueltas[ini + k] != sueltas[ini + t + k]) return false;
+            }
+            return true;
+        }
+
+        // Cierra el grupo en curso y las sueltas pendientes
+        private void vaciar() throws IOException {
+            if (tam > 0) {
+                escribir(grupo, tam, n);
+                if (pos > 0) escribir(grupo, pos, 1);
+                tam = 0;
+                pos = 0;
+            }
+            if (nSueltas > 0) escribir(sueltas, nSueltas, 1);
+            nSueltas = 0;
+        }
+
+        private void escribir(long[] paginas, int g, long reps) throws IOException {
+            escribirVarint(g);
+            escribirVarint(reps);
+            for (int k = 0; k < g; k++) escribirPagina(paginas[k]);
+            escritas += g * reps;
+        }
+
+        private void escribirPagina(long p) throws IOException {
+            long delta = p - anterior;
+            anterior = p;
+            escribirVarint((delta << 1) ^ (delta >> 63));
+        }
+
+        private void escribirVarint(long v) throws IOException {
+            while ((v & ~0x7FL) != 0) {
+                out.write((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            out.write((int) v);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                vaciar();
+                TrazaBinaria.escribirCola(out, suma, escritas);
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    // Cursor de Opcion2 sobre una traza RLE, sin expandir los grupos: la memoria
+    // es un registro. Ademas de pagina por pagina, expone el grupo actual para
+    // que Proceso cuente de una vez las repeticiones que son todas hits.
+    static final class Fuente implements FuentePaginas {
+        private final Path file;
+        private final DataInputStream in;
+        private final TrazaBinaria.Cabecera cabecera;
+        private long anterior = 0;
+
+        private long[] paginas = new long[MAX_GRUPO]; // grupo del registro actual
+        private int tam = 0, pos = 0;
+        private long rep = 0, reps = 0;
+        private long consumidas = 0;
+
+        private Fuente(Path file) throws IOException {
+            this.file = file;
+            this.in = new DataInputStream(abrirEntrada(file));
+            try {
+                this.cabecera = leerCabecera(in, file);
+                if (cabecera.nr <= 0) throw new IOException("No se encontraron referencias de páginas en " + file.getFileName());
+                leerRegistro();
+            } catch (IOException | RuntimeException e) {
+                in.close();
+                throw e;
+            }
+        }
+
+        static Fuente abrir(Path file) throws IOException {
+            return new Fuente(file);
+        }
+
+        TrazaBinaria.Cabecera cabecera() { return cabecera; }
+
+        public boolean hayMas() { return consumidas < cabecera.nr; }
+        public long actual()    { return paginas[pos]; }
+
+        public void avanzar() {
+            consumidas++;
+            if (++pos < tam) return;
+            pos = 0;
+            if (++rep == reps) siguienteRegistro();
+        }
+
+        public long restantesHasta(long k) { return Math.min(k, cabecera.nr - consumidas); }
+
+        public int grupo()                 { return pos == 0 ? tam : 0; }
+        public long paginaDelGrupo(int k)  { return paginas[k]; }
+        public long repeticiones()         { return pos == 0 ? reps - rep : 0; }
+        public boolean porRachas()         { return true; }
+
+        public void saltarRepeticiones(long k) {
+            consumidas += k * tam;
+            rep += k;
+            if (rep == reps) siguienteRegistro();
+        }
+
+        private void siguienteRegistro() {
+            if (!hayMas()) return;
+            try {
+                leerRegistro();
+            } catch (IOException e) {
+                throw new IllegalStateException("Error leyendo archivo " + file.getFileName() + ": " + e.getMessage(), e);
+            }
+        }
+
+        private void leerRegistro() throws IOException {
+            long g = leerVarint(), n = leerVarint();
+            if (g <= 0 || g > Integer.MAX_VALUE - 8 || n <= 0 || consumidas + g * n > cabecera.nr || g * n < 0) {
+                throw new IOException("Registro invalido tras " + consumidas + " referencias (G=" + g + ", N=" + n + ")");
+            }
+            tam = (int) g;
+            if (paginas.length < tam) paginas = Arrays.copyOf(paginas, Math.max(tam, paginas.length * 2));
+            for (int k = 0; k < tam; k++) {
+                long zz = leerVarint();
+                anterior += (zz >>> 1) ^ -(zz & 1L);
+                paginas[k] = anterior;
+            }
+            reps = n;
+            rep = 0;
+            pos = 0;
+        }
+
+        private long leerVarint() throws IOException {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = in.read();
+                if (b < 0) throw new EOFException("Traza RLE truncada tras " + consumidas + " referencias");
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return v;
+            }
+            throw new IOException("Varint invalido tras " + consumidas + " referencias");
+        }
+
+        @Override
+        public void close() {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+                // solo lectura
+            }
+        }
+    }
+
+    private static TrazaBinaria.Cabecera leerCabecera(DataInputStream in, Path file) throws IOException {
+        if (in.readInt() != MAGIA) throw new IOException("El archivo " + file.getFileName() + " no es una traza RLE");
+        byte version = in.readByte();
+        if (version != VERSION && version != VERSION_SIN_COLA) throw new IOException("Version de traza RLE no soportada: " + version);
+        int tp = in.readInt();
+        int nf = in.readInt();
+        int nc = in.readInt();
+        long nr = in.readLong();
+        long np = in.readLong();
+        int elemSize = in.readInt();
+        return new TrazaBinaria.Cabecera(tp, nf, nc, nr, np, elemSize);
+    }
+
+    // Recorre los registros sin expandirlos: suman exactamente NR, cada pagina
+    // esta en [0, NP) y, desde la version 2, la cola y su CRC32 coinciden
+    static long verificar(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        try (CheckedInputStream suma = new CheckedInputStream(abrirEntrada(file), crc);
+             DataInputStream in = new DataInputStream(suma)) {
+            if (in.readInt() != MAGIA) throw new IOException("El archivo " + file.getFileName() + " no es una traza RLE");
+            byte version = in.readByte();
+            if (version != VERSION && version != VERSION_SIN_COLA) {
+                throw new IOException("Version de traza RLE no soportada: " + version);
+            }
+            in.readInt(); // TP
+            in.readInt(); // NF
+            in.readInt(); // NC
+            long nr = in.readLong();
+            long np = in.readLong();
+            in.readInt(); // tamaño de elemento
+            if (nr <= 0 || np <= 0) throw new IOException(file.getFileName() + ": cabecera invalida (NR=" + nr + ", NP=" + np + ")");
+            long n = 0, pagina = 0;
+            try {
+                while (n < nr) {
+                    long g = varint(in), reps = varint(in);
+                    if (g <= 0 || reps <= 0 || g > nr - n || reps > (nr - n) / g) {
+                        throw new IOException(file.getFileName() + ": registro invalido tras " + n + " referencias (G=" + g + ", N=" + reps + ")");
+                    }
+                    for (long k = 0; k < g; k++) {
+                        long zz = varint(in);
+                        pagina += (zz >>> 1) ^ -(zz & 1L);
+                        if (pagina < 0 || pagina >= np) {
+                            throw new IOException(file.getFileName() + ": la referencia " + (n + k) + " cae en la pagina "
+                                    + pagina + ", fuera de NP=" + np);
+                        }
+                    }
+                    n += g * reps;
+                }
+                if (version != VERSION_SIN_COLA) {
+                    long valor = crc.getValue();
+                    TrazaBinaria.comprobarCola(ByteBuffer.wrap(in.readNBytes(TrazaBinaria.TAM_COLA)), nr, valor, file);
+                }
+                if (in.read() >= 0) throw new IOException(file.getFileName() + ": hay datos despues de NR=" + nr + " referencias");
+            } catch (EOFException e) {
+                throw new IOException(file.getFileName() + ": traza truncada tras " + n + " de NR=" + nr + " referencias");
+            }
+            return n;
+        }
+    }
+
+    private static long varint(DataInputStream in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("Varint invalido");
+    }
+
+    static TrazaBinaria.Cabecera cabecera(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(abrirEntrada(file))) {
+            return leerCabecera(in, file);
+        }
+    }
+
+    // Conversion de una traza texto o binaria a RLE (sin vuelta: se pierden los offsets)
+    static void desde(Path origen, Path destino, int elemSize, boolean gzip) throws IOException {
+        TrazaBinaria.Cabecera c;
+        if (TrazaBinaria.esBinaria(origen)) {
+            try (TrazaBinaria.Lector l = new TrazaBinaria.Lector(origen)) {
+                c = l.cabecera();
+            }
+        } else {
+            c = cabeceraTexto(origen, elemSize);
+        }
+        Opcion2 lector = new Opcion2();
+        FuentePaginas f = lector.abrirFuente(origen);
+        if (f == null) throw new IOException(lector.getLastError());
+        long n = 0;
+        try (f; Escritor w = new Escritor(destino, c, gzip)) {
+            for (; f.hayMas(); f.avanzar(), n++) w.pagina(f.actual());
+        } catch (IllegalStateException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        if (n != c.nr) throw new IOException("NR=" + c.nr + " pero se leyeron " + n + " referencias en " + origen.getFileName());
+    }
+
+    private static TrazaBinaria.Cabecera cabeceraTexto(Path txt, int elemSize) throws IOException {
+        String[] claves = {"TP", "NF", "NC", "NR", "NP"};
+        long[] v = new long[claves.length];
+        try (BufferedReader r = Files.newBufferedReader(txt)) {
+            for (int k = 0; k < claves.length; k++) {
+                String line = r.readLine();
+                if (line == null || !line.startsWith(claves[k] + "=")) {
+                    throw new IOException("Se esperaba la cabecera " + claves[k] + "=");
+                }
+                v[k] = Long.parseLong(line.substring(claves[k].length() + 1).trim());
+            }
+        }
+        return new TrazaBinaria.Cabecera((int) v[0], (int) v[1], (int) v[2], v[3], v[4], elemSize);
+    }
+}
\ No newline at end of file
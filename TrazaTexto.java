@@ -0,0 +1,237 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Formato texto de trazas (proc<i>.txt): 5 lineas de cabecera y una linea
+// M<k>:[i-j],pagina,offset,r|w por referencia
+public final class TrazaTexto {
+    // Tamaño del bloque que se vuelca al canal; la memoria no depende de NF x NC
+    static final int TAM_BLOQUE = 1 << 16;
+    // Una linea nunca supera esto (dos int + dos long + separadores)
+    private static final int MAX_LINEA = 96;
+    private static final String[] CLAVES = {"TP", "NF", "NC", "NR", "NP"};
+
+    private TrazaTexto() {}
+
+    // Escribe la traza en bloques de TAM_BLOQUE bytes directamente al FileChannel
+    static final class Escritor implements SalidaTraza {
+        private final FileChannel canal;
+        private final byte[] buf = new byte[TAM_BLOQUE];
+        private final ByteBuffer bb = ByteBuffer.wrap(buf);
+        private int pos = 0;
+        // Partes fijas de cada referencia de una racha: "Mk:[fila-" y "],pagina,"
+        private byte[][] prefijo = new byte[0][], medio = new byte[0][];
+        private int[] lPrefijo = new int[0], lMedio = new int[0];
+
+        Escritor(Path file, int tp, int nf, int nc, long nr, long np) throws IOException {
+            this.canal = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            String cab = "TP=" + tp + "\nNF=" + nf + "\nNC=" + nc + "\nNR=" + nr + "\nNP=" + np + "\n";
+            byte[] b = cab.getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(b, 0, buf, 0, b.length);
+            pos = b.length;
+        }
+
+        @Override
+        public void referencia(int matriz, int i, int j, long pagina, long offset, boolean escritura) throws IOException {
+            if (pos > TAM_BLOQUE - MAX_LINEA) vaciar();
+            byte[] b = buf;
+            int p = pos;
+            b[p++] = 'M';
+            b[p++] = (byte) ('0' + matriz);
+            b[p++] = ':';
+            b[p++] = '[';
+            p = numero(b, p, i);
+            b[p++] = '-';
+            p = numero(b, p, j);
+            b[p++] = ']';
+            b[p++] = ',';
+            p = numero(b, p, pagina);
+            b[p++] = ',';
+            p = numero(b, p, offset);
+            b[p++] = ',';
+            b[p++] = escritura ? (byte) 'w' : (byte) 'r';
+            b[p++] = '\n';
+            pos = p;
+        }
+
+        // En una racha la fila y la pagina de cada referencia no cambian: se
+        // formatean una vez y por repeticion solo se escriben columna y offset
+        @Override
+        public void racha(SalidaTraza.Racha r, int n) throws IOException {
+            if (prefijo.length < r.tam) {
+                prefijo = new byte[r.tam][MAX_LINEA];
+                medio = new byte[r.tam][MAX_LINEA];
+                lPrefijo = new int[r.tam];
+                lMedio = new int[r.tam];
+            }
+            for (int k = 0; k < r.tam; k++) {
+                byte[] b = prefijo[k];
+                int p = 0;
+                b[p++] = 'M';
+                b[p++] = (byte) ('0' + r.matriz[k]);
+                b[p++] = ':';
+                b[p++] = '[';
+                p = numero(b, p, r.fila[k]);
+                b[p++] = '-';
+                lPrefijo[k] = p;
+                b = medio[k];
+                p = 0;
+                b[p++] = ']';
+                b[p++] = ',';
+                p = numero(b, p, r.pagina[k]);
+                b[p++] = ',';
+                lMedio[k] = p;
+            }
+            for (int rep = 0; rep < n; rep++) {
+                for (int k = 0; k < r.tam; k++) {
+                    if (pos > TAM_BLOQUE - MAX_LINEA) vaciar();
+                    byte[] b = buf;
+                    int p = pos;
+                    System.arraycopy(prefijo[k], 0, b, p, lPrefijo[k]);
+                    p = numero(b, p + lPrefijo[k], r.col[k] + (long) rep * r.dCol[k]);
+                    System.arraycopy(medio[k], 0, b, p, lMedio[k]);
+                    p = numero(b, p + lMedio[k], r.offset[k] + (long) rep * r.paso[k]);
+                    b[p++] = ',';
+                    b[p++] = r.escritura[k] ? (byte) 'w' : (byte) 'r';
+                    b[p++] = '\n';
+                    pos = p;
+                }
+            }
+        }
+
+        // Escribe v (>= 0) en decimal a partir de p y devuelve la nueva posicion
+        private static int numero(byte[] b, int p, long v) {
+            if (v < 10) {
+                b[p] = (byte) ('0' + v);
+                return p + 1;
+            }
+            int digitos = 0;
+            for (long t = v; t > 0; t /= 10) digitos++;
+            int fin = p + digitos;
+            for (int k = fin - 1; k >= p; k--) {
+                b[k] = (byte) ('0' + (v % 10));
+                v /= 10;
+            }
+            return fin;
+        }
+
+        private void vaciar() throws IOException {
+            bb.clear().limit(pos);
+            while (bb.hasRemaining()) canal.write(bb);
+            pos = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                vaciar();
+            } finally {
+                canal.close();
+            }
+        }
+    }
+
+    // Recorre la traza por bytes, sin un String por linea: las 5 lineas de
+    // cabecera, NR referencias exactas, pagina < NP, offset < TP y r|w al final.
+    // El formato no tiene cola (es el del enunciado): una traza cortada se
+    // nota en la ultima linea a medias o en que hay menos de NR lineas.
+    static long verificar(Path file) throws IOException {
+        byte[] buf = new byte[TAM_BLOQUE];
+        try (InputStream in = Files.newInputStream(file)) {
+            int leidos = in.readNBytes(buf, 0, buf.length);
+            long[] cab = new long[CLAVES.length];
+            int p = 0;
+            for (int k = 0; k < CLAVES.length; k++) {
+                int fin = p;
+                while (fin < leidos && buf[fin] != '\n') fin++;
+                if (fin == leidos) throw new IOException(file.getFileName() + " no tiene suficientes líneas de metadatos (mínimo 5)");
+                String linea = new String(buf, p, fin - p, StandardCharsets.US_ASCII).trim();
+                if (!linea.startsWith(CLAVES[k] + "=")) {
+                    throw new IOException(file.getFileName() + ": se esperaba la cabecera " + CLAVES[k] + "=");
+                }
+                try {
+                    cab[k] = Long.parseLong(linea.substring(CLAVES[k].length() + 1).trim());
+                } catch (NumberFormatException e) {
+                    throw new IOException(file.getFileName() + ": valor invalido en la cabecera '" + linea + "'");
+                }
+                p = fin + 1;
+            }
+            long tp = cab[0], nr = cab[3], np = cab[4];
+            if (tp <= 0 || nr <= 0 || np <= 0) {
+                throw new IOException(file.getFileName() + ": cabecera invalida (TP=" + tp + ", NR=" + nr + ", NP=" + np + ")");
+            }
+
+            // Campos de la linea en curso: 0 etiqueta, 1 pagina, 2 offset, 3 r|w
+            long n = 0, linea = CLAVES.length, pagina = 0, offset = 0;
+            int campo = 0, digitos = 0;
+            boolean hayDatos = false, rw = false;
+            while (leidos > 0) {
+                for (; p < leidos; p++) {
+                    byte b = buf[p];
+                    if (b == '\n') {
+                        linea++;
+                        if (hayDatos) {
+                            if (!rw) throw formato(file, linea);
+                            enRango(file, linea, pagina, offset, tp, np);
+                            if (++n > nr) throw new IOException(file.getFileName() + ": hay mas de NR=" + nr + " referencias");
+                        }
+                        campo = 0;
+                        digitos = 0;
+                        pagina = 0;
+                        offset = 0;
+                        hayDatos = false;
+                        rw = false;
+                        continue;
+                    }
+                    if (b == '\r' || b == ' ' || b == '\t') continue;
+                    hayDatos = true;
+                    if (b == ',') {
+                        if (((campo == 1 || campo == 2) && digitos == 0) || ++campo > 3) throw formato(file, linea + 1);
+                        digitos = 0;
+                        continue;
+                    }
+                    if (campo == 0) continue; // etiqueta M<k>:[i-j], no se usa
+                    if (campo == 3) {
+                        if (rw || (b != 'r' && b != 'w')) throw formato(file, linea + 1);
+                        rw = true;
+                        continue;
+                    }
+                    if (b < '0' || b > '9' || ++digitos > 18) throw formato(file, linea + 1);
+                    if (campo == 1) pagina = pagina * 10 + (b - '0');
+                    else offset = offset * 10 + (b - '0');
+                }
+                leidos = in.readNBytes(buf, 0, buf.length);
+                p = 0;
+            }
+            if (hayDatos) {
+                if (!rw) throw new IOException(file.getFileName() + ": la ultima linea esta incompleta (traza truncada?)");
+                enRango(file, linea + 1, pagina, offset, tp, np);
+                n++;
+            }
+            if (n != nr) {
+                throw new IOException(file.getFileName() + ": NR=" + nr + " pero hay " + n + " referencias (traza truncada?)");
+            }
+            return n;
+        }
+    }
+
+    private static void enRango(Path file, long linea, long pagina, long offset, long tp, long np) throws IOException {
+        if (pagina >= np) {
+            throw new IOException(file.getFileName() + " línea " + linea + ": pagina " + pagina + " fuera de NP=" + np);
+        }
+        if (offset >= tp) {
+            throw new IOException(file.getFileName() + " línea " + linea + ": offset " + offset + " fuera de TP=" + tp);
+        }
+    }
+
+    private static IOException formato(Path file, long linea) {
+        return new IOException("Formato inválido en archivo " + file.getFileName() + " línea " + linea
+                + ": se espera M<k>:[i-j],pagina,offset,r|w");
+    }
+}
\ No newline at end of file
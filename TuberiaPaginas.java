@@ -0,0 +1,192 @@
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+// Tuberia generador -> simulador para un proceso: el generador corre en su
+// propio hilo y deja las paginas en un buffer circular acotado que Proceso lee
+// como FuentePaginas. No hay archivo intermedio; si se pide una copia, el
+// mismo hilo la escribe ademas de alimentar el buffer.
+// Un solo productor y un solo consumidor: los indices se publican por lotes
+// con escrituras volatile y cada lado se bloquea con park/unpark solo cuando
+// el buffer esta lleno (productor) o vacio (consumidor).
+final class TuberiaPaginas implements FuentePaginas {
+    static final int CAPACIDAD = 1 << 16;
+    // Cada cuantas paginas se publica el avance del otro lado
+    private static final int LOTE = 1 << 10;
+
+    // Genera las referencias de un proceso en la salida dada
+    interface Productor {
+        void generar(SalidaTraza out) throws IOException;
+    }
+
+    private final long[] buffer = new long[CAPACIDAD];
+    private final long total;
+    private final String nombre;
+    private Thread hilo;
+
+    // Lado productor (solo lo toca el hilo generador)
+    private long escritoLocal = 0;
+    private long liberadoCache = 0;
+    // Lado consumidor (solo lo toca el hilo que simula el proceso)
+    private long leido = 0;
+    private long escritoCache = 0;
+
+    private volatile long escrito = 0;
+    private volatile long liberado = 0;
+    private volatile Thread productorEsperando;
+    private volatile Thread consumidorEsperando;
+    private volatile boolean terminado = false;
+    private volatile boolean cancelado = false;
+    private volatile String error;
+
+    // total: referencias que producira el generador (NR)
+    TuberiaPaginas(String nombre, long total) {
+        this.nombre = nombre;
+        this.total = total;
+    }
+
+    // Arranca el hilo generador. copia (puede ser null) recibe las mismas
+    // referencias y se cierra al terminar.
+    void iniciar(Productor productor, SalidaTraza copia) {
+        Entrada entrada = new Entrada(copia);
+        hilo = new Thread(() -> {
+            String fallo = null;
+            try {
+                productor.generar(entrada);
+            } catch (IOException | RuntimeException e) {
+                fallo = e.getMessage();
+            }
+            try {
+                if (copia != null) copia.close();
+            } catch (IOException e) {
+                if (fallo == null) fallo = e.getMessage();
+            } finally {
+                if (fallo != null && !cancelado) error = "Error generando " + nombre + ": " + fallo;
+                publicar();
+                terminado = true;
+                LockSupport.unpark(consumidorEsperando);
+            }
+        }, "generador-" + nombre);
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    @Override
+    public boolean hayMas() { return leido < total; }
+
+    @Override
+    public long actual() {
+        if (leido >= escritoCache) esperarDatos();
+        return buffer[(int) leido & (CAPACIDAD - 1)];
+    }
+
+    @Override
+    public void avanzar() {
+        leido++;
+        if ((leido & (LOTE - 1)) == 0) liberar();
+    }
+
+    // NR es exacto: lo que falta producir tambien cuenta
+    @Override
+    public long restantesHasta(long k) {
+        return Math.min(k, total - leido);
+    }
+
+    // Espera a que el generador termine (y cierre la copia). Devuelve el error
+    // del generador o null.
+    String terminar() {
+        esperarHilo();
+        return error;
+    }
+
+    // Si el simulador abandona antes de tiempo, el generador se detiene
+    @Override
+    public void close() {
+        cancelado = true;
+        LockSupport.unpark(productorEsperando);
+        esperarHilo();
+    }
+
+    private void esperarHilo() {
+        if (hilo == null) return;
+        try {
+            hilo.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void liberar() {
+        liberado = leido;
+        Thread p = productorEsperando;
+        if (p != null) LockSupport.unpark(p);
+    }
+
+    private void esperarDatos() {
+        liberar();
+        while (true) {
+            escritoCache = escrito;
+            if (leido < escritoCache) return;
+            if (error != null) throw new IllegalStateException(error);
+            if (terminado) {
+                // publicar() ocurre antes de marcar terminado
+                escritoCache = escrito;
+                if (leido < escritoCache) return;
+                throw new IllegalStateException("El generador de " + nombre + " produjo " + escritoCache
+                        + " de " + total + " referencias");
+            }
+            consumidorEsperando = Thread.currentThread();
+            if (escrito == escritoCache && !terminado) LockSupport.park(this);
+            consumidorEsperando = null;
+        }
+    }
+
+    private void publicar() {
+        escrito = escritoLocal;
+        Thread c = consumidorEsperando;
+        if (c != null) LockSupport.unpark(c);
+    }
+
+    private void poner(long pagina) throws IOException {
+        if (escritoLocal - liberadoCache >= CAPACIDAD) esperarEspacio();
+        buffer[(int) escritoLocal & (CAPACIDAD - 1)] = pagina;
+        escritoLocal++;
+        if ((escritoLocal & (LOTE - 1)) == 0) publicar();
+    }
+
+    private void esperarEspacio() throws IOException {
+        publicar();
+        while (true) {
+            liberadoCache = liberado;
+            if (escritoLocal - liberadoCache < CAPACIDAD) return;
+            if (cancelado) throw new IOException("simulacion cancelada");
+            productorEsperando = Thread.currentThread();
+            if (liberado == liberadoCache && !cancelado) LockSupport.park(this);
+            productorEsperando = null;
+        }
+    }
+
+    // Lo que ve el generador: las paginas van al buffer y, si hay copia, al archivo
+    private final class Entrada implements SalidaTraza {
+        private final SalidaTraza copia;
+
+        Entrada(SalidaTraza copia) { this.copia = copia; }
+
+        @Override
+        public void referencia(int matriz, int i, int j, long pagina, long offset, boolean escritura) throws IOException {
+            if (copia != null) copia.referencia(matriz, i, j, pagina, offset, escritura);
+            poner(pagina);
+        }
+
+        // En una racha la pagina de cada referencia no cambia entre repeticiones
+        @Override
+        public void racha(SalidaTraza.Racha r, int n) throws IOException {
+            if (copia != null) copia.racha(r, n);
+            for (int rep = 0; rep < n; rep++) {
+                for (int k = 0; k < r.tam; k++) poner(r.pagina[k]);
+            }
+        }
+
+        @Override
+        public void close() {}
+    }
+}
\ No newline at end of file
@@ -3,12 +3,14 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class UI {
+    static final int ELEM_SIZE = 4;
 
+    // Con argumentos corre sin preguntas (ver Lote)
     public static void main(String[] args) {
+        if (args.length > 0) System.exit(Lote.ejecutar(args));
         new UI().ejecutarUnaVez();
     }
 
@@ -26,6 +28,18 @@ public class UI {
                     case 2:
                         ejecutarOpcion2(in);
                         break;
+                    case 3:
+                        ejecutarConversion(in);
+                        break;
+                    case 4:
+                        ejecutarTuberia(in);
+                        break;
+                    case 5:
+                        ejecutarBarrido(in);
+                        break;
+                    case 6:
+                        ejecutarAnalisis(in);
+                        break;
                     case 0:
                         System.out.println("Saliendo...");
                         break;
@@ -47,15 +61,22 @@ public class UI {
         System.out.println("Opcion 1 — Generacion de referencias (trazas)");
         Path configPath = archivo(in, "Ruta del archivo de configuración: ");
         Config cfg = leerConfig(configPath); // valida TP>0, NPROC>0, TAMS formato NFxNC y cantidad == NPROC
-        final int elemSize = 4;
+        final int elemSize = ELEM_SIZE;
 
         Path outDir = directorio(in, "Carpeta de salida para proc<i>.txt: ");
         sobrescrituraArchivos(in, outDir); // confirmar por y/n
+        boolean binario = Sino(in, "¿Generar trazas en formato binario proc<i>.bin? (y/n): ");
+        int hilos = hilos(in, "Hilos para la generacion");
+        String patron = patron(in, cfg);
+        String rle = rle(in);
 
         // Se instancia solo una clase
         Opcion1 opcion1 = new Opcion1();
+        opcion1.setHilos(hilos);
+        opcion1.setPatron(patron);
+        opcion1.setRLE(!rle.equals("n"), rle.equals("gz"));
 
-        boolean ok = opcion1.runOpcion1(cfg.tp, cfg.nproc, cfg.sizes, elemSize, outDir);
+        boolean ok = opcion1.runOpcion1(cfg.tp, cfg.nproc, cfg.sizes, elemSize, outDir, binario);
         if (!ok) {
             String why = opcional(opcion1.getLastError(), "Fallo en Opcion 1.");
             throw new IllegalArgumentException(why);
@@ -79,13 +100,35 @@ public class UI {
             
             Path inDir = directorio(in, "Carpeta que contiene proc<i>.txt: ");
             validarProcFiles(inDir, nproc);
+            validarTrazas(inDir, nproc);
+            List<String> politicas = politicas(in);
+            int hilos = hilos(in, "Hilos para la simulacion");
+            String asignacion = asignacion(in);
+            long compartidas = paginasCompartidas(in, asignacion, politicas);
+            int[] tlb = tlb(in);
+            ModeloLatencia latencias = latencias(in);
+            long intervalo = intervaloMetricas(in);
+            long pasosCheckpoint = pasosCheckpoint(in);
+            boolean retomar = pasosCheckpoint > 0 && retomar(in, inDir, politicas);
 
-            Opcion2 opcion2 = new Opcion2();
-            boolean ok = opcion2.runOpcion2(nproc, totalFrames, inDir);
-            
-            if (!ok) {
-                String why = opcional(opcion2.getLastError(), "Fallo en Opcion 2.");
-                throw new IllegalArgumentException(why);
+            // Varias politicas en la misma ejecucion para comparar tasas de fallo
+            for (String politica : politicas) {
+                Opcion2 opcion2 = new Opcion2();
+                opcion2.setHilos(hilos);
+                opcion2.setAsignacion(asignacion);
+                opcion2.setPaginasCompartidas(compartidas);
+                opcion2.setTLB(tlb[0], tlb[1]);
+                opcion2.setLatencias(latencias);
+                activarMetricas(opcion2, intervalo);
+                if (pasosCheckpoint > 0) {
+                    opcion2.setCheckpoint(new Checkpoint(archivoCheckpoint(inDir, politica), pasosCheckpoint, retomar));
+                }
+                boolean ok = opcion2.runOpcion2(nproc, totalFrames, inDir, politica);
+
+                if (!ok) {
+                    String why = opcional(opcion2.getLastError(), "Fallo en Opcion 2.");
+                    throw new IllegalArgumentException(why);
+                }
             }
             
             System.out.println("Opcion 2 finalizada.");
@@ -94,23 +137,280 @@ public class UI {
             e.printStackTrace();
         }
     }
+    // Conversion entre traza texto y binaria; la direccion se detecta por el contenido
+    private void ejecutarConversion(Scanner in) {
+        System.out.println("Opcion 3 — Conversion de trazas texto <-> binario (o a RLE si el destino termina en .rle)");
+        Path origen = archivo(in, "Archivo de traza de origen: ");
+        System.out.print("Archivo de destino: ");
+        String s = in.nextLine().trim();
+        if (s.isEmpty()) throw new IllegalArgumentException("Ruta vacia.");
+        Path destino = Paths.get(s);
+        if (Files.exists(destino) && !Sino(in, "El destino ya existe. ¿ Desea sobrescribirlo? (y/n): ")) {
+            throw new IllegalArgumentException("Operacion cancelada por usuario");
+        }
+        try {
+            if (destino.getFileName().toString().endsWith(".rle")) {
+                if (TrazaRLE.esRLE(origen)) throw new IllegalArgumentException("El origen ya es una traza RLE.");
+                boolean gzip = Sino(in, "¿Comprimir ademas con gzip? (y/n): ");
+                TrazaRLE.desde(origen, destino, ELEM_SIZE, gzip);
+                System.out.println("Convertido a RLE: " + destino + " (" + Files.size(origen) + " -> " + Files.size(destino) + " bytes)");
+            } else if (TrazaRLE.esRLE(origen)) {
+                throw new IllegalArgumentException("Una traza RLE no guarda offsets: no se puede convertir a texto ni a binario.");
+            } else if (TrazaBinaria.esBinaria(origen)) {
+                TrazaBinaria.binarioATexto(origen, destino);
+                System.out.println("Convertido a texto: " + destino);
+            } else {
+                TrazaBinaria.textoABinario(origen, destino, ELEM_SIZE);
+                System.out.println("Convertido a binario: " + destino);
+            }
+        } catch (IOException | NumberFormatException e) {
+            throw new IllegalArgumentException("Fallo en la conversion: " + e.getMessage());
+        }
+    }
+
+    // Generacion y simulacion encadenadas; las trazas solo se escriben si se pide
+    private void ejecutarTuberia(Scanner in) {
+        System.out.println("Opcion 4 — Generar y simular sin archivos intermedios");
+        Path configPath = archivo(in, "Ruta del archivo de configuración: ");
+        Config cfg = leerConfig(configPath);
+        int totalFrames = enteroPositivo(in, "Numero total de marcos: ");
+        if (totalFrames % cfg.nproc != 0) {
+            throw new IllegalArgumentException("El numero de marcos (" + totalFrames +
+                    ") debe ser MULTIPLO de NPROC (" + cfg.nproc + ").");
+        }
+
+        Path outDir = null;
+        boolean binario = false;
+        if (Sino(in, "¿Guardar tambien las trazas proc<i>? (y/n): ")) {
+            outDir = directorio(in, "Carpeta de salida para proc<i>.txt: ");
+            sobrescrituraArchivos(in, outDir);
+            binario = Sino(in, "¿Generar trazas en formato binario proc<i>.bin? (y/n): ");
+        }
+        List<String> politicas = politicas(in);
+        int hilos = hilos(in, "Hilos para la simulacion");
+        String asignacion = asignacion(in);
+        long compartidas = paginasCompartidas(in, asignacion, politicas);
+        int[] tlb = tlb(in);
+        ModeloLatencia latencias = latencias(in);
+        long intervalo = intervaloMetricas(in);
+        String patron = patron(in, cfg);
+
+        for (String politica : politicas) {
+            Opcion2 opcion2 = new Opcion2();
+            opcion2.setHilos(hilos);
+            opcion2.setPatron(patron);
+            opcion2.setAsignacion(asignacion);
+            opcion2.setPaginasCompartidas(compartidas);
+            opcion2.setTLB(tlb[0], tlb[1]);
+            opcion2.setLatencias(latencias);
+            activarMetricas(opcion2, intervalo);
+            boolean ok = opcion2.runTuberia(cfg.tp, cfg.nproc, cfg.sizes, ELEM_SIZE,
+                    totalFrames, politica, outDir, binario);
+            if (!ok) {
+                String why = opcional(opcion2.getLastError(), "Fallo en la tuberia.");
+                throw new IllegalArgumentException(why);
+            }
+        }
+
+        System.out.println("Opcion 4 finalizada.");
+    }
+
+    // Curva de fallos para un rango de marcos totales, en una pasada por traza
+    private void ejecutarBarrido(Scanner in) {
+        System.out.println("Opcion 5 — Barrido de marcos (curva de fallos)");
+        int nproc = enteroPositivo(in, "Numero de procesos: ");
+        Path inDir = directorio(in, "Carpeta que contiene proc<i>.txt: ");
+        validarProcFiles(inDir, nproc);
+        validarTrazas(inDir, nproc);
+        int minMarcos = enteroPositivo(in, "Marcos totales minimos: ");
+        int maxMarcos = enteroPositivo(in, "Marcos totales maximos: ");
+        int paso = enteroPositivo(in, "Paso: ");
+        if (maxMarcos < minMarcos) throw new IllegalArgumentException("El maximo debe ser >= que el minimo.");
+        if (minMarcos % nproc != 0 || paso % nproc != 0) {
+            throw new IllegalArgumentException("El minimo y el paso deben ser MULTIPLOS de NPROC (" + nproc + ").");
+        }
+        List<String> politicas = politicas(in);
+        int hilos = hilos(in, "Hilos para el barrido");
+        System.out.print("Archivo de salida .csv o .json (Enter = solo resumen): ");
+        String s = in.hasNextLine() ? in.nextLine().trim() : "";
+        Path salida = s.isEmpty() ? null : Paths.get(s);
+
+        Barrido barrido = new Barrido();
+        barrido.setHilos(hilos);
+        if (!barrido.runBarrido(nproc, inDir, minMarcos, maxMarcos, paso, politicas, salida)) {
+            throw new IllegalArgumentException(opcional(barrido.getLastError(), "Fallo en el barrido."));
+        }
+        System.out.println("Opcion 5 finalizada.");
+    }
+
+    // Conjunto de trabajo, distancia de reuso, popularidad y fases de cada traza
+    private void ejecutarAnalisis(Scanner in) {
+        System.out.println("Opcion 6 — Analisis de localidad");
+        int nproc = enteroPositivo(in, "Numero de procesos: ");
+        Path inDir = directorio(in, "Carpeta que contiene proc<i>.txt: ");
+        validarProcFiles(inDir, nproc);
+        validarTrazas(inDir, nproc);
+        System.out.print("Ventana delta en referencias (Enter = 10000): ");
+        String s = in.hasNextLine() ? in.nextLine().trim() : "";
+        if (!s.isEmpty() && (!s.matches("\\d+") || Integer.parseInt(s) <= 0)) {
+            throw new IllegalArgumentException("Debe ingresar un entero positivo.");
+        }
+        int delta = s.isEmpty() ? 10000 : Integer.parseInt(s);
+        Path outDir = directorio(in, "Carpeta para los CSV: ");
+
+        AnalisisLocalidad analisis = new AnalisisLocalidad();
+        if (!analisis.runAnalisis(nproc, inDir, delta, outDir)) {
+            throw new IllegalArgumentException(opcional(analisis.getLastError(), "Fallo en el analisis."));
+        }
+        System.out.println("Opcion 6 finalizada.");
+    }
+
     private int Opciones(Scanner in) {
         System.out.println(
             "----------------------------\n" +
             "Seleccione una opcion:\n" +
             "  [1] Opcion 1\n" +
             "  [2] Opcion 2\n" +
+            "  [3] Convertir traza texto <-> binario (o a RLE)\n" +
+            "  [4] Generar y simular (sin archivos intermedios)\n" +
+            "  [5] Barrido de marcos (curva de fallos)\n" +
+            "  [6] Analisis de localidad\n" +
             "  [0] Salir\n" +
             "----------------------------"
         );
         System.out.print("Opcion: ");
         String line = in.nextLine().trim();
-        if (!line.matches("\\d+")) throw new IllegalArgumentException("Debe ingresar un numero (0,1,2).");
+        if (!line.matches("\\d+")) throw new IllegalArgumentException("Debe ingresar un numero (0-6).");
         int val = Integer.parseInt(line);
-        if (val < 0 || val > 2) throw new IllegalArgumentException("Opcion fuera de rango.");
+        if (val < 0 || val > 6) throw new IllegalArgumentException("Opcion fuera de rango.");
         return val;
     }
 
+    // Lista separada por comas de ReplacementPolicy.NOMBRES, "todas", o vacio = aging
+    private List<String> politicas(Scanner in) {
+        System.out.print("Politica de reemplazo [" + String.join("/", ReplacementPolicy.NOMBRES)
+                + "/todas, separadas por coma] (Enter = aging): ");
+        String s = in.hasNextLine() ? in.nextLine().trim().toLowerCase(Locale.ROOT) : "";
+        if (s.isEmpty()) return List.of("aging");
+        if (s.equals("todas")) return List.of(ReplacementPolicy.NOMBRES);
+        List<String> res = new ArrayList<>();
+        for (String p : s.split("\\s*,\\s*")) {
+            if (!Arrays.asList(ReplacementPolicy.NOMBRES).contains(p)) {
+                throw new IllegalArgumentException("Politica desconocida '" + p + "'. Use "
+                        + String.join(", ", ReplacementPolicy.NOMBRES) + " o todas");
+            }
+            res.add(p);
+        }
+        return res;
+    }
+
+    // Vacio = 1 (secuencial)
+    private int hilos(Scanner in, String prompt) {
+        System.out.print(prompt + " (Enter = 1, " + Runtime.getRuntime().availableProcessors() + " nucleos disponibles): ");
+        String s = in.hasNextLine() ? in.nextLine().trim() : "";
+        if (s.isEmpty()) return 1;
+        if (!s.matches("\\d+") || Integer.parseInt(s) <= 0) throw new IllegalArgumentException("Debe ingresar un entero positivo.");
+        return Integer.parseInt(s);
+    }
+
+    // Vacio = fallos; global no reparte: CLOCK comun sobre todos los marcos
+    private String asignacion(Scanner in) {
+        System.out.print("Asignacion de marcos [" + String.join("/", FrameAllocator.NOMBRES) + "/"
+                + FrameAllocator.GLOBAL + "] (Enter = fallos): ");
+        String s = in.hasNextLine() ? in.nextLine().trim().toLowerCase() : "";
+        s = FrameAllocator.normalizar(s);
+        if (!Arrays.asList(FrameAllocator.NOMBRES).contains(s) && !s.equals(FrameAllocator.GLOBAL)) {
+            throw new IllegalArgumentException("Asignacion desconocida: " + s);
+        }
+        return s;
+    }
+
+    // Solo con reemplazo global, que usa un CLOCK comun: las paginas [0, N)
+    // son las mismas para todos los procesos (M1 empieza en la direccion 0)
+    private long paginasCompartidas(Scanner in, String asignacion, List<String> politicas) {
+        if (!asignacion.equals(FrameAllocator.GLOBAL)) return 0;
+        if (!politicas.equals(List.of("clock"))) {
+            throw new IllegalArgumentException("El reemplazo global usa un CLOCK compartido: elija solo la politica clock.");
+        }
+        System.out.print("Paginas virtuales compartidas por todos los procesos, desde la 0 (Enter = ninguna): ");
+        String s = in.hasNextLine() ? in.nextLine().trim() : "";
+        if (s.isEmpty()) return 0;
+        if (!s.matches("\\d+")) throw new IllegalArgumentException("Debe ingresar un entero no negativo.");
+        return Long.parseLong(s);
+    }
+
+    // Se valida contra los tamaños (matmul requiere NF == NC)
+    private String patron(Scanner in, Config cfg) {
+        System.out.print("Patron de acceso [filas/columnas/bloques[:B]/transpuesta/matmul-ijk/matmul-ikj] (Enter = filas): ");
+        String s = AccessPattern.normalizar(in.hasNextLine() ? in.nextLine() : "");
+        for (int[] sz : cfg.sizes) AccessPattern.crear(s, cfg.tp, sz[0], sz[1], ELEM_SIZE);
+        return s;
+    }
+
+    // "n", "y" (proc<i>.rle) o "gz" (proc<i>.rle dentro de gzip)
+    private String rle(Scanner in) {
+        System.out.print("¿Comprimir las trazas por rachas en proc<i>.rle? (n/y/gz, Enter = n): ");
+        String s = (in.hasNextLine() ? in.nextLine() : "").trim().toLowerCase(Locale.ROOT);
+        if (s.isEmpty()) return "n";
+        if (!s.equals("n") && !s.equals("y") && !s.equals("gz")) throw new IllegalArgumentException("Responda n, y o gz.");
+        return s;
+    }
+
+    // {entradas, vias}; entradas = 0 sin TLB
+    private int[] tlb(Scanner in) {
+        System.out.print("Entradas de la TLB (Enter = sin TLB): ");
+        String s = in.hasNextLine() ? in.nextLine().trim() : "";
+        if (s.isEmpty()) return new int[]{0, 1};
+        if (!s.matches("\\d+") || Integer.parseInt(s) <= 0) throw new IllegalArgumentException("Debe ingresar un entero positivo.");
+        int entradas = Integer.parseInt(s);
+        System.out.print("Vias de la TLB (Enter = 4): ");
+        String v = in.hasNextLine() ? in.nextLine().trim() : "";
+        if (!v.isEmpty() && (!v.matches("\\d+") || Integer.parseInt(v) <= 0)) throw new IllegalArgumentException("Debe ingresar un entero positivo.");
+        int vias = v.isEmpty() ? Math.min(4, entradas) : Integer.parseInt(v);
+        new TLB(entradas, vias); // valida que las entradas sean multiplo de las vias
+        return new int[]{entradas, vias};
+    }
+
+    private ModeloLatencia latencias(Scanner in) {
+        System.out.print("Latencias TLB,RAM,SWAP en ns para el AMAT (Enter = sin modelo, d = 1,100,8000000): ");
+        String s = in.hasNextLine() ? in.nextLine().trim() : "";
+        return s.isEmpty() ? null : ModeloLatencia.leer(s);
+    }
+
+    // Vacio = sin metricas periodicas
+    private long intervaloMetricas(Scanner in) {
+        System.out.print("Metricas cada N pasos de simulacion (Enter = desactivadas): ");
+        String s = in.hasNextLine() ? in.nextLine().trim() : "";
+        if (s.isEmpty()) return 0;
+        if (!s.matches("\\d+") || Long.parseLong(s) <= 0) throw new IllegalArgumentException("Debe ingresar un entero positivo.");
+        return Long.parseLong(s);
+    }
+
+    private long pasosCheckpoint(Scanner in) {
+        System.out.print("Checkpoints cada N pasos de simulacion (Enter = sin checkpoints): ");
+        String s = in.hasNextLine() ? in.nextLine().trim() : "";
+        if (s.isEmpty()) return 0;
+        if (!s.matches("\\d+") || Long.parseLong(s) <= 0) throw new IllegalArgumentException("Debe ingresar un entero positivo.");
+        return Long.parseLong(s);
+    }
+
+    // Solo se pregunta si quedo el checkpoint de una corrida cortada
+    private boolean retomar(Scanner in, Path dir, List<String> politicas) {
+        boolean hay = politicas.stream().anyMatch(p -> Files.exists(archivoCheckpoint(dir, p)));
+        return hay && Sino(in, "Hay checkpoints de una corrida anterior en esa carpeta. ¿ Desea retomarla? (y/n): ");
+    }
+
+    static Path archivoCheckpoint(Path dir, String politica) {
+        return dir.resolve("checkpoint-" + ReplacementPolicy.normalizar(politica) + ".ckpt");
+    }
+
+    // Consola y eventos JFR (estos solo se registran con una grabacion activa)
+    private static void activarMetricas(Opcion2 opcion2, long intervalo) {
+        if (intervalo > 0) {
+            opcion2.setMetricas(MetricasSimulacion.ambas(new MetricasSimulacion.Consola(), new EventosJFR()), intervalo);
+        }
+    }
+
     private int enteroPositivo(Scanner in, String prompt) {
         System.out.print(prompt);
         String s = in.nextLine().trim();
@@ -148,29 +448,52 @@ public class UI {
         throw new IllegalArgumentException("Responda y/n");
     }
 
-    private List<int[]> validarTamanios(String csv, int esperados) {
+    // Un recorrido por la lista, sin split ni regex: con miles de procesos
+    // TAMS es una linea larga y se parte a mano
+    private static List<int[]> validarTamanios(String csv, int esperados) {
         if (csv.isEmpty()) throw new IllegalArgumentException("La lista de tamaños no puede estar vacia.");
-        String[] parts = csv.split("\\s*,\\s*");
-        if (parts.length != esperados) {
+        // Como split(","): las comas sobrantes al final no cuentan ("4x4," vale)
+        int largo = csv.length();
+        while (largo > 0 && (csv.charAt(largo - 1) == ',' || Character.isWhitespace(csv.charAt(largo - 1)))) largo--;
+        int partes = largo == 0 ? 0 : 1;
+        for (int k = 0; k < largo; k++) if (csv.charAt(k) == ',') partes++;
+        if (partes != esperados) {
             throw new IllegalArgumentException("Se esperaban " + esperados + " tamaños (NFxNC) separados por coma.");
         }
-        Pattern pat = Pattern.compile("(?i)^(\\d+)x(\\d+)$");
-        List<int[]> res = new ArrayList<>(parts.length);
-        for (String px : parts) {
-            var m = pat.matcher(px.trim());
-            if (!m.matches()) {
+        csv = csv.substring(0, largo);
+        List<int[]> res = new ArrayList<>(esperados);
+        for (int ini = 0; ini < largo; ) {
+            int fin = csv.indexOf(',', ini);
+            if (fin < 0) fin = largo;
+            String px = csv.substring(ini, fin).trim();
+            int x = Math.max(px.indexOf('x'), px.indexOf('X'));
+            int nf = x < 0 ? -1 : enteroNoNegativo(px, 0, x);
+            int nc = x < 0 ? -1 : enteroNoNegativo(px, x + 1, px.length());
+            if (nf < 0 || nc < 0) {
                 throw new IllegalArgumentException("Formato invalido '" + px + "'. Use NFxNC");
             }
-            int nf = Integer.parseInt(m.group(1));
-            int nc = Integer.parseInt(m.group(2));
-            if (nf <= 0 || nc <= 0) {
+            if (nf == 0 || nc == 0) {
                 throw new IllegalArgumentException("NF y NC deben ser > 0 ,dato invalido en: '" + px + "'.");
             }
             res.add(new int[]{nf, nc});
+            ini = fin + 1;
         }
         return res;
     }
 
+    // Digitos de s[ini, fin) como int; -1 si hay otra cosa, esta vacio o desborda
+    private static int enteroNoNegativo(String s, int ini, int fin) {
+        if (ini >= fin) return -1;
+        long v = 0;
+        for (int k = ini; k < fin; k++) {
+            char c = s.charAt(k);
+            if (c < '0' || c > '9') return -1;
+            v = v * 10 + (c - '0');
+            if (v > Integer.MAX_VALUE) return -1;
+        }
+        return (int) v;
+    }
+
     private void sobrescrituraArchivos(Scanner in, Path outDir) {
         boolean any = !listaProcFiles(outDir).isEmpty();
         if (any) {
@@ -179,10 +502,10 @@ public class UI {
         }
     }
 
-    private List<Path> listaProcFiles(Path dir) {
+    private static List<Path> listaProcFiles(Path dir) {
         try (var stream = Files.list(dir)) {
             return stream
-                    .filter(p -> p.getFileName().toString().matches("proc\\d+\\.txt"))
+                    .filter(p -> pidDeArchivo(p.getFileName().toString()) >= 0)
                     .sorted(Comparator.comparing(p -> p.getFileName().toString()))
                     .collect(Collectors.toList());
         } catch (IOException e) {
@@ -190,25 +513,51 @@ public class UI {
         }
     }
 
-    private void validarProcFiles(Path dir, int nproc) {
-        for (int pid = 0; pid < nproc; pid++) {
-            Path f = dir.resolve("proc" + pid + ".txt");
-            if (!Files.exists(f)) {
-                throw new IllegalArgumentException("Falta el archivo " + f.getFileName() + " en " + dir);
-            }
+    // pid de un nombre proc<i>.txt|bin|rle, o -1 si no es una traza
+    private static int pidDeArchivo(String nombre) {
+        int punto = nombre.length() - 4;
+        if (punto <= 4 || !nombre.startsWith("proc") || nombre.charAt(punto) != '.') return -1;
+        String ext = nombre.substring(punto + 1);
+        if (!ext.equals("txt") && !ext.equals("bin") && !ext.equals("rle")) return -1;
+        if (nombre.charAt(4) == '0' && punto > 5) return -1; // proc07 no es el proceso 7
+        return enteroNoNegativo(nombre, 4, punto);
+    }
+
+    // Una sola pasada por el directorio, en vez de un exists por proceso
+    static void validarProcFiles(Path dir, int nproc) {
+        BitSet pids = new BitSet(nproc);
+        try (var stream = Files.list(dir)) {
+            stream.forEach(p -> {
+                int pid = pidDeArchivo(p.getFileName().toString());
+                if (pid >= 0) pids.set(pid); // proc<i>.txt, .bin y .rle del mismo proceso cuentan una sola vez
+            });
+        } catch (IOException e) {
+            throw new IllegalArgumentException("No se pudo listar " + dir + ": " + e.getMessage());
+        }
+        int falta = pids.nextClearBit(0);
+        if (falta < nproc) {
+            throw new IllegalArgumentException("Falta el archivo proc" + falta + ".txt (o proc" + falta + ".bin / .rle) en " + dir);
         }
-        List<Path> all = listaProcFiles(dir);
-        if (all.size() != nproc) {
-            throw new IllegalArgumentException("Se encontraron " + all.size() + " archivos proc<i>.txt, pero NPROC=" + nproc + ".");
+        int procesos = pids.cardinality();
+        if (procesos != nproc) {
+            throw new IllegalArgumentException("Se encontraron " + procesos + " archivos proc<i>.txt, pero NPROC=" + nproc + ".");
         }
     }
 
+    // Contenido de las trazas contra su cabecera, en paralelo por archivo
+    static void validarTrazas(Path dir, int nproc) {
+        int hilos = Math.min(nproc, Runtime.getRuntime().availableProcessors());
+        ValidadorTrazas.Informe informe = ValidadorTrazas.validar(dir, nproc, hilos);
+        if (informe.error != null) throw new IllegalArgumentException("Traza invalida: " + informe.error);
+        System.out.println("[Validacion] " + informe);
+    }
+
     private static String opcional(String s, String fallback) {
         return (s == null || s.isBlank()) ? fallback : s;
     }
 
     // Lectura de config
-    private static final class Config {
+    static final class Config {
         final int tp;
         final int nproc;
         final List<int[]> sizes;
@@ -217,7 +566,7 @@ public class UI {
         }
     }
 
-    private Config leerConfig(Path configPath) {
+    static Config leerConfig(Path configPath) {
         Map<String,String> kv = new HashMap<>();
         try {
             for (String raw : Files.readAllLines(configPath)) {
@@ -0,0 +1,111 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Validacion del contenido de proc<i> antes de simular, sin cargar nada en
+// memoria: NR referencias exactas, paginas < NP (y offsets < TP en texto) y,
+// en binaria y RLE, la cola con el CRC32 que escribe el generador.
+// Primero se mira solo el final de cada archivo (una cola ausente delata una
+// traza truncada sin leerla entera); despues se recorren en paralelo, un
+// archivo por tarea, y el primer error cancela las demas.
+final class ValidadorTrazas {
+
+    private ValidadorTrazas() {}
+
+    static final class Informe {
+        final String error;      // null si todas las trazas son validas
+        final int archivos;
+        final long bytes, referencias, nanos;
+
+        Informe(String error, int archivos, long bytes, long referencias, long nanos) {
+            this.error = error;
+            this.archivos = archivos;
+            this.bytes = bytes;
+            this.referencias = referencias;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public String toString() {
+            return archivos + " trazas, " + referencias + " referencias, "
+                    + String.format("%.1f MB en %d ms", bytes / 1e6, nanos / 1_000_000);
+        }
+    }
+
+    static Informe validar(Path dir, int nproc, int hilos) {
+        long inicio = System.nanoTime();
+        Path[] archivos = new Path[nproc];
+        long bytes = 0;
+        try {
+            for (int pid = 0; pid < nproc; pid++) {
+                archivos[pid] = Opcion2.archivoProceso(dir, pid);
+                bytes += Files.size(archivos[pid]);
+                revisarFinal(archivos[pid]);
+            }
+        } catch (NoSuchFileException e) {
+            return new Informe("Falta el archivo " + e.getMessage(), nproc, bytes, 0, System.nanoTime() - inicio);
+        } catch (IOException e) {
+            return new Informe(e.getMessage(), nproc, bytes, 0, System.nanoTime() - inicio);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(hilos, nproc)), r -> {
+            Thread t = new Thread(r, "validador");
+            t.setDaemon(true);
+            return t;
+        });
+        CompletionService<Long> tareas = new ExecutorCompletionService<>(pool);
+        String error = null;
+        long referencias = 0;
+        try {
+            for (Path f : archivos) tareas.submit(() -> recorrer(f));
+            for (int k = 0; k < nproc && error == null; k++) {
+                try {
+                    referencias += tareas.take().get();
+                } catch (ExecutionException e) {
+                    Throwable causa = e.getCause();
+                    error = causa instanceof IOException ? causa.getMessage()
+                            : "Error validando trazas: " + causa;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = "Validacion interrumpida";
+        } finally {
+            pool.shutdownNow();
+        }
+        return new Informe(error, nproc, bytes, referencias, System.nanoTime() - inicio);
+    }
+
+    // Solo los ultimos bytes: la cola de binaria y de RLE sin gzip. El texto
+    // no tiene cola y se revisa entero en recorrer.
+    private static void revisarFinal(Path f) throws IOException {
+        if (TrazaBinaria.esBinaria(f)) {
+            try (TrazaBinaria.Lector l = new TrazaBinaria.Lector(f)) {
+                if (version(f) != TrazaBinaria.VERSION_SIN_COLA) TrazaBinaria.comprobarFinal(f, l.cabecera().nr);
+            }
+        } else if (TrazaRLE.esRLE(f) && !TrazaRLE.comprimida(f) && version(f) != TrazaRLE.VERSION_SIN_COLA) {
+            TrazaBinaria.comprobarFinal(f, TrazaRLE.cabecera(f).nr);
+        }
+    }
+
+    // Byte de version, justo despues de la magia (sin gzip)
+    private static byte version(Path f) throws IOException {
+        try (InputStream in = Files.newInputStream(f)) {
+            byte[] b = in.readNBytes(5);
+            return b.length < 5 ? -1 : b[4];
+        }
+    }
+
+    private static long recorrer(Path f) throws IOException {
+        if (TrazaBinaria.esBinaria(f)) return TrazaBinaria.verificar(f);
+        if (TrazaRLE.esRLE(f)) return TrazaRLE.verificar(f);
+        return TrazaTexto.verificar(f);
+    }
+}
\ No newline at end of file